@@ -0,0 +1,103 @@
+package benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import logging.EventLog;
+import model.Ingredient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import repository.IngredientCursorRepository;
+import repository.IngredientRepository;
+import service.Hedger;
+import service.IngredientBatchResolver;
+import service.IngredientCache;
+import service.IngredientNameIndex;
+import service.IngredientService;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name resolution of {@link IngredientService#addIngredients(List)}: half of the requested names exist
+ * in the catalog, half are new. {@code linearScan} is the former findAll + per-name scan, kept as baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddIngredientsBenchmark {
+
+    @Param({"1000", "100000"})
+    int catalogSize;
+
+    @Param({"10", "500"})
+    int requestSize;
+
+    @Param({"true", "false"})
+    boolean warmCache;
+
+    private IngredientRepository ingredientRepository;
+
+    private IngredientCache ingredientCache;
+
+    private IngredientService ingredientService;
+
+    private List<String> names;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ingredientRepository = InMemoryIngredientRepository.create(catalogSize);
+        ingredientCache = new IngredientCache(ingredientRepository, new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(10));
+        IngredientCursorRepository cursorRepository = new IngredientCursorRepository(new SimpleDriverDataSource(), 500);
+        ingredientService = new IngredientService(ingredientRepository,
+                ingredientCache,
+                new IngredientBatchResolver(ingredientRepository, ingredientCache, 1000),
+                cursorRepository,
+                new IngredientNameIndex(cursorRepository),
+                Hedger.disabled(),
+                new EventLog(1024, EventLog.Level.WARN, 100, OutputStream.nullOutputStream()),
+                new SimpleMeterRegistry());
+
+        names = new ArrayList<>(requestSize);
+        for (int i = 0; i < requestSize; i++) {
+            names.add(i % 2 == 0 ? "ingredient " + (i * 7 % catalogSize) : "new ingredient " + i);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCache() {
+        if (!warmCache) {
+            ingredientCache.invalidateAll();
+        }
+    }
+
+    @Benchmark
+    public List<Ingredient> batchResolver() {
+        return ingredientService.addIngredients(names);
+    }
+
+    @Benchmark
+    public List<Ingredient> linearScan() {
+        List<Ingredient> recipeIngredients = new ArrayList<>();
+        List<Ingredient> missingIngredients = new ArrayList<>();
+        List<Ingredient> existingIngredients = ingredientRepository.findAll();
+        names.forEach(ingNames -> {
+            Optional<Ingredient> existingIng = existingIngredients
+                    .stream()
+                    .filter(ing -> ing.getName().trim().toLowerCase().equals(ingNames))
+                    .findFirst();
+            if (existingIng.isPresent()) {
+                recipeIngredients.add(existingIng.get());
+            } else {
+                missingIngredients.add(Ingredient.builder().name(ingNames).build());
+            }
+        });
+        recipeIngredients.addAll(ingredientRepository.saveAll(missingIngredients));
+        return recipeIngredients;
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import logging.EventLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+// Caller-side cost of one log line from 8 threads: the former System.out.println with a formatted
+// timestamp against the ring-buffer EventLog (enabled, sampled, below the level). Both write to a null stream.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class EventLogBenchmark {
+
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss:SSS");
+
+    private PrintStream printStream;
+
+    private EventLog eventLog;
+
+    @Setup
+    public void setUp() {
+        printStream = new PrintStream(OutputStream.nullOutputStream(), true);
+        eventLog = new EventLog(8192, EventLog.Level.INFO, 100, OutputStream.nullOutputStream());
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventLog.close();
+    }
+
+    @Benchmark
+    public void println() {
+        printStream.println("Getting Ingredients; "
+                + "current time = " + LocalDateTime.now().format(formatter) +
+                "; current thread = " + Thread.currentThread().getName());
+    }
+
+    @Benchmark
+    public void eventLog() {
+        eventLog.log(EventLog.Level.INFO, "ingredients.slow-read", "attempt", "first");
+    }
+
+    @Benchmark
+    public void eventLogSampled() {
+        eventLog.sample(EventLog.Level.INFO, "bulkhead.call-permitted", "event", "permitted");
+    }
+
+    @Benchmark
+    public void eventLogBelowLevel() {
+        eventLog.log(EventLog.Level.DEBUG, "ingredients.from-cache");
+    }
+}
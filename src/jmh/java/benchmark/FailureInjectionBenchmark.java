@@ -0,0 +1,86 @@
+package benchmark;
+
+import failures.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost the failures.* injectors add to every IngredientService.getIngredients() call
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FailureInjectionBenchmark {
+
+    private final PotentialFailure noFailure = new NoFailure();
+
+    private final PotentialDelay noDelay = new NoDelay();
+
+    // windows large enough that the measured calls stay on the succeeding branch
+    private final PotentialFailure succeedNTimes = new SucceedNTimesAndThenFail(Integer.MAX_VALUE);
+
+    private final PotentialFailure succeedThenFail = new SucceedXTimesFailYTimesAndThenSucceed(0, 0);
+
+    private final PotentialFailure failHalfTheTime = new FailHalfTheTime(0);
+
+    private final PotentialFailure alwaysFail = new FailNTimes(Integer.MAX_VALUE);
+
+    private final PotentialFailure neverFailRate = new FailRate(0.0);
+
+    private final SampledDelay logNormal = new LogNormalDelay(50, 0.8, 30_000);
+
+    private final SampledDelay pareto = new ParetoDelay(20, 1.5, 30_000);
+
+    @Benchmark
+    public void noFailure() {
+        noFailure.occur();
+    }
+
+    @Benchmark
+    public void noDelay() {
+        noDelay.occur();
+    }
+
+    @Benchmark
+    public void succeedNTimesAndThenFail() {
+        succeedNTimes.occur();
+    }
+
+    @Benchmark
+    public void succeedXTimesFailYTimesAndThenSucceed() {
+        succeedThenFail.occur();
+    }
+
+    @Benchmark
+    public void failHalfTheTimeExhausted() {
+        failHalfTheTime.occur();
+    }
+
+    @Benchmark
+    public void failRate() {
+        neverFailRate.occur();
+    }
+
+    // the draw only, without the sleep
+    @Benchmark
+    public long logNormalSample() {
+        return logNormal.sampleMillis(FaultRandom.current());
+    }
+
+    @Benchmark
+    public long paretoSample() {
+        return pareto.sampleMillis(FaultRandom.current());
+    }
+
+    @Benchmark
+    public Object failNTimesThrowing() {
+        try {
+            alwaysFail.occur();
+            return null;
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+}
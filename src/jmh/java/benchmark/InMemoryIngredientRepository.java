@@ -0,0 +1,86 @@
+package benchmark;
+
+import model.Ingredient;
+import model.IngredientNames;
+import repository.IngredientRepository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for {@link IngredientRepository} so the benchmarks run without a database.
+ * Only the methods used on the measured paths are implemented, anything else throws.
+ * Inserts get an id but are not kept, so every invocation sees the same catalog.
+ */
+final class InMemoryIngredientRepository implements InvocationHandler {
+
+    private final Map<String, Ingredient> byNormalizedName = new LinkedHashMap<>();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private InMemoryIngredientRepository(int catalogSize) {
+        for (int i = 0; i < catalogSize; i++) {
+            Ingredient ingredient = Ingredient.builder()
+                    .id(ids.incrementAndGet())
+                    .name("Ingredient " + i)
+                    .normalizedName(IngredientNames.normalize("Ingredient " + i))
+                    .build();
+            byNormalizedName.put(ingredient.getNormalizedName(), ingredient);
+        }
+    }
+
+    static IngredientRepository create(int catalogSize) {
+        return (IngredientRepository) Proxy.newProxyInstance(
+                IngredientRepository.class.getClassLoader(),
+                new Class<?>[]{IngredientRepository.class},
+                new InMemoryIngredientRepository(catalogSize));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "findAll":
+                return new ArrayList<>(byNormalizedName.values());
+            case "findById":
+                return byNormalizedName.values().stream().filter(i -> i.getId().equals(args[0])).findFirst();
+            case "findByNormalizedName":
+                return Optional.ofNullable(byNormalizedName.get((String) args[0]));
+            case "findByNormalizedNameIn": {
+                List<Ingredient> found = new ArrayList<>();
+                for (String name : (Collection<String>) args[0]) {
+                    Ingredient ingredient = byNormalizedName.get(name);
+                    if (ingredient != null) {
+                        found.add(ingredient);
+                    }
+                }
+                return found;
+            }
+            case "saveAll": {
+                List<Ingredient> saved = new ArrayList<>();
+                for (Ingredient ingredient : (Iterable<Ingredient>) args[0]) {
+                    ingredient.setId(ids.incrementAndGet());
+                    ingredient.setNormalizedName(IngredientNames.normalize(ingredient.getName()));
+                    saved.add(ingredient);
+                }
+                return saved;
+            }
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "InMemoryIngredientRepository";
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+}
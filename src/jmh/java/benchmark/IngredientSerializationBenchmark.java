@@ -0,0 +1,39 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import model.Ingredient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson serialization of the GET /ingredient response body
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngredientSerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<Ingredient> ingredients;
+
+    @Setup
+    public void setUp() {
+        ingredients = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            ingredients.add(Ingredient.builder().id(i).name("ingredient " + i).build());
+        }
+    }
+
+    @Benchmark
+    public byte[] writeList() throws Exception {
+        return objectMapper.writeValueAsBytes(ingredients);
+    }
+}
@@ -0,0 +1,86 @@
+package benchmark;
+
+import Resilience_modules.AdaptiveConcurrencyLimiter;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Overhead of the Resilience4j wrappers used by Resilience_modules around a no-op supplier
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResilienceDecoratorBenchmark {
+
+    private Supplier<List<Object>> plain;
+
+    private Supplier<List<Object>> circuitBreaker;
+
+    private Supplier<List<Object>> retry;
+
+    private Supplier<List<Object>> bulkhead;
+
+    private Supplier<List<Object>> adaptiveLimiter;
+
+    private Supplier<List<Object>> all;
+
+    @Setup
+    public void setUp() {
+        plain = List::of;
+        CircuitBreaker breaker = CircuitBreaker.of("benchmark", CircuitBreakerConfig.ofDefaults());
+        Retry retrying = Retry.of("benchmark", RetryConfig.ofDefaults());
+        Bulkhead bulk = Bulkhead.of("benchmark", BulkheadConfig.custom().maxConcurrentCalls(Integer.MAX_VALUE).build());
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("benchmark",
+                AdaptiveConcurrencyLimiter.Config.builder().maxLimit(Integer.MAX_VALUE).build());
+
+        circuitBreaker = CircuitBreaker.decorateSupplier(breaker, plain);
+        retry = Retry.decorateSupplier(retrying, plain);
+        bulkhead = Bulkhead.decorateSupplier(bulk, plain);
+        adaptiveLimiter = AdaptiveConcurrencyLimiter.decorateSupplier(limiter, plain);
+        all = Retry.decorateSupplier(retrying, CircuitBreaker.decorateSupplier(breaker,
+                AdaptiveConcurrencyLimiter.decorateSupplier(limiter, plain)));
+    }
+
+    @Benchmark
+    public List<Object> baseline() {
+        return plain.get();
+    }
+
+    @Benchmark
+    public List<Object> circuitBreaker() {
+        return circuitBreaker.get();
+    }
+
+    @Benchmark
+    public List<Object> retry() {
+        return retry.get();
+    }
+
+    @Benchmark
+    public List<Object> bulkhead() {
+        return bulkhead.get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Object> adaptiveLimiterContended() {
+        return adaptiveLimiter.get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Object> allContended() {
+        return all.get();
+    }
+}
@@ -0,0 +1,270 @@
+package loadtest;
+
+import com.example.resilience.ResilienceApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots {@link ResilienceApplication} on the embedded H2 database (profile {@code h2}), seeds the
+ * catalog through the import endpoint and drives the ingredient endpoints from worker threads.
+ * Latencies are recorded per operation in HdrHistograms and written as JSON, with the mode they were
+ * measured in:
+ * <ul>
+ *     <li>open loop ({@code loadtest.rate} set): every worker sends on a fixed schedule and a request's
+ *     latency is measured from the time it was due, so a stall also counts against the requests that
+ *     would have queued behind it</li>
+ *     <li>closed loop (default): every worker sends its next request when the previous one answered;
+ *     to correct for the requests a stall keeps from being sent, values are recorded with
+ *     {@code recordValueWithExpectedInterval} and the worker's mean latency during the warmup</li>
+ * </ul>
+ *
+ * <p>Options (system properties, {@code -Ploadtest.x=...} through Gradle):
+ * <ul>
+ *     <li>{@code loadtest.concurrency} - worker threads, default 16</li>
+ *     <li>{@code loadtest.rate} - requests per second over all workers for an open-loop run, default 0 (closed loop)</li>
+ *     <li>{@code loadtest.duration} - measured seconds, default 30</li>
+ *     <li>{@code loadtest.warmup} - seconds run before measuring, default 5</li>
+ *     <li>{@code loadtest.catalog} - ingredients seeded before the run, default 10000</li>
+ *     <li>{@code loadtest.mix} - operation weights, default {@code get:50,search:20,page:15,add:10,list:5}</li>
+ *     <li>{@code loadtest.output} - report file, default {@code build/reports/loadtest/results.json}</li>
+ * </ul>
+ */
+public class LoadTest {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        int rate = Integer.getInteger("loadtest.rate", 0);
+        int durationSeconds = Integer.getInteger("loadtest.duration", 30);
+        int warmupSeconds = Integer.getInteger("loadtest.warmup", 5);
+        int catalogSize = Integer.getInteger("loadtest.catalog", 10000);
+        Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix", "get:50,search:20,page:15,add:10,list:5"));
+        File output = new File(System.getProperty("loadtest.output", "build/reports/loadtest/results.json"));
+
+        SpringApplication application = new SpringApplication(ResilienceApplication.class);
+        application.setAdditionalProfiles("h2");
+        try (ConfigurableApplicationContext context = application.run("--server.port=0", "--logging.level.root=WARN", "--resilience.rate-limit.enabled=false")) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            seed(client, baseUrl, catalogSize);
+
+            Operation[] schedule = schedule(mix);
+            List<Worker> workers = new ArrayList<>();
+            long start = System.nanoTime();
+            long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+            CountDownLatch done = new CountDownLatch(concurrency);
+            long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(concurrency) / rate : 0;
+            for (int i = 0; i < concurrency; i++) {
+                // open-loop workers are staggered over one interval instead of all sending at once
+                long firstSend = start + intervalNanos * i / concurrency;
+                Worker worker = new Worker(client, baseUrl, catalogSize, schedule, firstSend, intervalNanos, measureFrom, end, done);
+                workers.add(worker);
+                new Thread(worker, "load-worker-" + i).start();
+            }
+            done.await();
+
+            Map<String, Object> report = report(concurrency, rate, durationSeconds, warmupSeconds, catalogSize, mix, workers);
+            output.getAbsoluteFile().getParentFile().mkdirs();
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, report);
+            System.out.println(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report));
+            System.out.println("Report written to " + output.getAbsolutePath());
+        }
+    }
+
+    private static void seed(HttpClient client, String baseUrl, int catalogSize) throws Exception {
+        StringBuilder csv = new StringBuilder("name\n");
+        for (int i = 0; i < catalogSize; i++) {
+            csv.append("ingredient ").append(i).append('\n');
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/ingredient/import"))
+                        .header("Content-Type", "text/csv")
+                        .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding the catalog failed: " + response.statusCode() + " " + response.body());
+        }
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    // one slot per weight unit, workers pick a random slot
+    private static Operation[] schedule(Map<Operation, Integer> mix) {
+        List<Operation> slots = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        return slots.toArray(new Operation[0]);
+    }
+
+    private static Map<String, Object> report(int concurrency, int rate, int durationSeconds, int warmupSeconds, int catalogSize,
+                                              Map<Operation, Integer> mix, List<Worker> workers) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("mode", rate > 0 ? "open-loop" : "closed-loop");
+        config.put("latencyMeasuredFrom", rate > 0 ? "intended send time" : "actual send time, corrected with the expected interval");
+        config.put("targetRatePerSecond", rate > 0 ? rate : null);
+        config.put("concurrency", concurrency);
+        config.put("durationSeconds", durationSeconds);
+        config.put("warmupSeconds", warmupSeconds);
+        config.put("catalogSize", catalogSize);
+        config.put("mix", mix);
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        long totalRequests = 0;
+        long totalErrors = 0;
+        for (Operation operation : mix.keySet()) {
+            Histogram histogram = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+            long requests = 0;
+            long errors = 0;
+            for (Worker worker : workers) {
+                histogram.add(worker.histograms.get(operation));
+                requests += worker.counts.get(operation)[0];
+                errors += worker.counts.get(operation)[1];
+            }
+            total.add(histogram);
+            totalRequests += requests;
+            totalErrors += errors;
+            operations.put(operation.name().toLowerCase(), stats(histogram, requests, errors, durationSeconds));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("total", stats(total, totalRequests, totalErrors, durationSeconds));
+        report.put("operations", operations);
+        return report;
+    }
+
+    // requests counted apart from the histogram, which also holds the values filled in by the closed-loop correction
+    private static Map<String, Object> stats(Histogram histogram, long requests, long errors, int durationSeconds) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests);
+        stats.put("errors", errors);
+        stats.put("throughputPerSecond", (double) requests / durationSeconds);
+        stats.put("meanMillis", histogram.getMean() / 1e6);
+        stats.put("p50Millis", histogram.getValueAtPercentile(50) / 1e6);
+        stats.put("p99Millis", histogram.getValueAtPercentile(99) / 1e6);
+        stats.put("p999Millis", histogram.getValueAtPercentile(99.9) / 1e6);
+        stats.put("maxMillis", histogram.getMaxValue() / 1e6);
+        return stats;
+    }
+
+    private static final class Worker implements Runnable {
+
+        private final HttpClient client;
+        private final String baseUrl;
+        private final int catalogSize;
+        private final Operation[] schedule;
+        private final long firstSend;
+        // open loop: time between the intended sends of this worker, 0 for closed loop
+        private final long intervalNanos;
+        private final long measureFrom;
+        private final long end;
+        private final CountDownLatch done;
+        private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        // requests and errors per operation
+        private final Map<Operation, long[]> counts = new EnumMap<>(Operation.class);
+
+        Worker(HttpClient client, String baseUrl, int catalogSize, Operation[] schedule, long firstSend, long intervalNanos,
+               long measureFrom, long end, CountDownLatch done) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.catalogSize = catalogSize;
+            this.schedule = schedule;
+            this.firstSend = firstSend;
+            this.intervalNanos = intervalNanos;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.done = done;
+            for (Operation operation : Operation.values()) {
+                histograms.put(operation, new Histogram(HIGHEST_TRACKABLE_NANOS, 3));
+                counts.put(operation, new long[2]);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                long due = firstSend;
+                long warmupLatencies = 0;
+                long warmupRequests = 0;
+                long expectedInterval = 0;
+                while (true) {
+                    long now = System.nanoTime();
+                    if (intervalNanos > 0) {
+                        // behind schedule the request goes out at once, its latency still counts from when it was due
+                        if (due > now) {
+                            TimeUnit.NANOSECONDS.sleep(due - now);
+                        }
+                    } else {
+                        due = now;
+                    }
+                    if (due >= end) {
+                        return;
+                    }
+                    Operation operation = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+                    boolean failed;
+                    try {
+                        HttpResponse<Void> response = client.send(operation.request(baseUrl, catalogSize),
+                                HttpResponse.BodyHandlers.discarding());
+                        failed = response.statusCode() >= 400;
+                    } catch (Exception e) {
+                        failed = true;
+                    }
+                    long latency = Math.min(System.nanoTime() - due, HIGHEST_TRACKABLE_NANOS);
+                    if (due >= measureFrom) {
+                        if (intervalNanos > 0) {
+                            histograms.get(operation).recordValue(latency);
+                        } else {
+                            if (expectedInterval == 0 && warmupRequests > 0) {
+                                expectedInterval = warmupLatencies / warmupRequests;
+                            }
+                            histograms.get(operation).recordValueWithExpectedInterval(latency, expectedInterval);
+                        }
+                        counts.get(operation)[0]++;
+                        if (failed) {
+                            counts.get(operation)[1]++;
+                        }
+                    } else {
+                        warmupLatencies += latency;
+                        warmupRequests++;
+                    }
+                    due += intervalNanos;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.concurrent.ThreadLocalRandom;
+
+// the IngredientController calls the load test can mix
+enum Operation {
+    LIST {
+        @Override
+        HttpRequest request(String baseUrl, int catalogSize) {
+            return get(baseUrl + "/ingredient");
+        }
+    },
+    PAGE {
+        @Override
+        HttpRequest request(String baseUrl, int catalogSize) {
+            return get(baseUrl + "/ingredient?limit=50");
+        }
+    },
+    GET {
+        @Override
+        HttpRequest request(String baseUrl, int catalogSize) {
+            return get(baseUrl + "/ingredient/" + (1 + ThreadLocalRandom.current().nextInt(catalogSize)));
+        }
+    },
+    SEARCH {
+        @Override
+        HttpRequest request(String baseUrl, int catalogSize) {
+            return get(baseUrl + "/ingredient/search?prefix=ingredient%20" + ThreadLocalRandom.current().nextInt(100));
+        }
+    },
+    ADD {
+        @Override
+        HttpRequest request(String baseUrl, int catalogSize) {
+            // a quarter of the adds hit an existing name
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String name = random.nextInt(4) == 0
+                    ? "ingredient " + random.nextInt(catalogSize)
+                    : "load ingredient " + random.nextLong(Long.MAX_VALUE);
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/ingredient"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"" + name + "\"}"))
+                    .build();
+        }
+    };
+
+    abstract HttpRequest request(String baseUrl, int catalogSize);
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+}
@@ -0,0 +1,39 @@
+package loadtest;
+
+import request.FaultProfileRequest;
+
+// the backend fault a scenario injects between its healthy phases
+enum Scenario {
+    OUTAGE {
+        @Override
+        FaultProfileRequest fault() {
+            return FaultProfileRequest.builder()
+                    .failure(FaultProfileRequest.Failure.FAIL_RATE)
+                    .failureRate(1.0)
+                    .build();
+        }
+    },
+    FLAKY {
+        @Override
+        FaultProfileRequest fault() {
+            return FaultProfileRequest.builder()
+                    .failure(FaultProfileRequest.Failure.FAIL_RATE)
+                    .failureRate(0.5)
+                    .build();
+        }
+    },
+    // median 2.5 s, above the 2 s slow call threshold of the slow call configurations
+    SLOW {
+        @Override
+        FaultProfileRequest fault() {
+            return FaultProfileRequest.builder()
+                    .delay(FaultProfileRequest.Delay.LOG_NORMAL)
+                    .delayMillis(2500L)
+                    .sigma(0.3)
+                    .maxDelayMillis(10_000L)
+                    .build();
+        }
+    };
+
+    abstract FaultProfileRequest fault();
+}
@@ -0,0 +1,343 @@
+package loadtest;
+
+import com.example.resilience.ResilienceApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import model.Ingredient;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import service.FaultInjectionService;
+import service.IngredientService;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Replays backend failure scenarios against circuit breaker configurations and measures how they
+ * react, instead of reading the output of the {@code CircuitBreakerService} demos.
+ *
+ * <p>Boots {@link ResilienceApplication} on H2 like {@link LoadTest}. For every configuration and
+ * {@link Scenario} a fresh breaker with the configuration of the named registry instance wraps
+ * {@link IngredientService#getIngredients()}. Closed-loop callers then run through three phases:
+ * healthy, the scenario's fault (injected through {@link FaultInjectionService}) and healthy again.
+ * Reported per run:
+ * <ul>
+ *     <li>{@code timeToOpenMillis} - fault start until the breaker opened, null if it never did</li>
+ *     <li>{@code timeToRecoverMillis} - fault end until the breaker closed again, 0 if it was already closed
+ *     again at fault end, null if it did not close within the run</li>
+ *     <li>{@code wastedCalls} - caller calls that failed or were slow during the fault, plus calls rejected
+ *     after the backend had recovered. {@code getIngredients()} coalesces concurrent callers and hedges
+ *     slow reads, so several of these can share one backend call</li>
+ *     <li>{@code backendCalls} - per phase, the executions that actually reached the backend: coalesced
+ *     executions plus the hedges they started, taken from the single-flight and hedge meters</li>
+ *     <li>call counts and latency per phase, the state transitions and per second call/failure/rejection counts</li>
+ * </ul>
+ *
+ * <p>Options (system properties, {@code -Pscenario.x=...} through Gradle):
+ * <ul>
+ *     <li>{@code scenario.configs} - circuit breaker instances, default
+ *     {@code IngredientService,countBasedSlidingWindow_FailedCalls,timeBasedSlidingWindow_FailedCalls,circuitBreakerOpenAndThenClose,countBasedSlidingWindow_SlowCalls}</li>
+ *     <li>{@code scenario.scenarios} - default {@code outage,flaky,slow}</li>
+ *     <li>{@code scenario.callers} - caller threads, default 8</li>
+ *     <li>{@code scenario.think-millis} - pause between the calls of a caller, default 20</li>
+ *     <li>{@code scenario.healthy-seconds}, {@code scenario.fault-seconds}, {@code scenario.recovery-seconds} -
+ *     phase lengths, default 3, 10 and 20</li>
+ *     <li>{@code scenario.output} - report file, default {@code build/reports/scenarios/results.json}</li>
+ * </ul>
+ */
+public class ScenarioRunner {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    enum Phase { HEALTHY, FAULT, RECOVERY }
+
+    enum Outcome { SUCCESS, FAILURE, REJECTED }
+
+    public static void main(String[] args) throws Exception {
+        List<String> configs = Arrays.asList(System.getProperty("scenario.configs",
+                "IngredientService,countBasedSlidingWindow_FailedCalls,timeBasedSlidingWindow_FailedCalls,"
+                        + "circuitBreakerOpenAndThenClose,countBasedSlidingWindow_SlowCalls").split(","));
+        List<Scenario> scenarios = Arrays.stream(System.getProperty("scenario.scenarios", "outage,flaky,slow").split(","))
+                .map(name -> Scenario.valueOf(name.trim().toUpperCase()))
+                .collect(Collectors.toList());
+        Settings settings = new Settings(
+                Integer.getInteger("scenario.callers", 8),
+                Integer.getInteger("scenario.think-millis", 20),
+                TimeUnit.SECONDS.toNanos(Integer.getInteger("scenario.healthy-seconds", 3)),
+                TimeUnit.SECONDS.toNanos(Integer.getInteger("scenario.fault-seconds", 10)),
+                TimeUnit.SECONDS.toNanos(Integer.getInteger("scenario.recovery-seconds", 20)));
+        File output = new File(System.getProperty("scenario.output", "build/reports/scenarios/results.json"));
+
+        SpringApplication application = new SpringApplication(ResilienceApplication.class);
+        application.setAdditionalProfiles("h2");
+        try (ConfigurableApplicationContext context = application.run("--server.port=0", "--logging.level.root=WARN")) {
+            IngredientService ingredientService = context.getBean(IngredientService.class);
+            FaultInjectionService faults = context.getBean(FaultInjectionService.class);
+            CircuitBreakerRegistry registry = context.getBean(CircuitBreakerRegistry.class);
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            ingredientService.addIngredients(IntStream.range(0, 100).mapToObj(i -> "ingredient " + i).collect(Collectors.toList()));
+
+            List<Map<String, Object>> runs = new ArrayList<>();
+            for (String configName : configs) {
+                CircuitBreakerConfig config = registry.circuitBreaker(configName.trim()).getCircuitBreakerConfig();
+                for (Scenario scenario : scenarios) {
+                    faults.reset();
+                    Map<String, Object> run = run(configName.trim(), config, scenario, settings, ingredientService, faults, meterRegistry);
+                    runs.add(run);
+                    System.out.printf("%-45s %-8s timeToOpen=%-8s timeToRecover=%-8s wasted=%s%n", configName.trim(), scenario,
+                            run.get("timeToOpenMillis"), run.get("timeToRecoverMillis"), run.get("wastedCalls"));
+                }
+            }
+            faults.reset();
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("settings", settings.toMap());
+            report.put("runs", runs);
+            output.getAbsoluteFile().getParentFile().mkdirs();
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, report);
+            System.out.println("Report written to " + output.getAbsolutePath());
+        }
+    }
+
+    private static Map<String, Object> run(String configName, CircuitBreakerConfig config, Scenario scenario, Settings settings,
+                                           IngredientService ingredientService, FaultInjectionService faults,
+                                           MeterRegistry meterRegistry) throws InterruptedException {
+        CircuitBreaker breaker = CircuitBreaker.of(configName, config);
+        Supplier<List<Ingredient>> call = breaker.decorateSupplier(ingredientService::getIngredients);
+        long slowNanos = config.getSlowCallDurationThreshold().toNanos();
+
+        long start = System.nanoTime();
+        long faultStart = start + settings.healthyNanos;
+        long faultEnd = faultStart + settings.faultNanos;
+        long end = faultEnd + settings.recoveryNanos;
+        int seconds = (int) TimeUnit.NANOSECONDS.toSeconds(end - start) + 1;
+        Recorder recorder = new Recorder(seconds);
+
+        List<Map<String, Object>> transitions = Collections.synchronizedList(new ArrayList<>());
+        breaker.getEventPublisher().onStateTransition(event -> {
+            Map<String, Object> transition = new LinkedHashMap<>();
+            transition.put("atMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            transition.put("from", event.getStateTransition().getFromState());
+            transition.put("to", event.getStateTransition().getToState());
+            transitions.add(transition);
+        });
+
+        long[] backendCalls = new long[Phase.values().length + 1];
+        backendCalls[0] = backendCalls(meterRegistry);
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < settings.callers; i++) {
+            Thread caller = new Thread(() -> {
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    Phase phase = now < faultStart ? Phase.HEALTHY : now < faultEnd ? Phase.FAULT : Phase.RECOVERY;
+                    Outcome outcome;
+                    try {
+                        call.get();
+                        outcome = Outcome.SUCCESS;
+                    } catch (CallNotPermittedException e) {
+                        outcome = Outcome.REJECTED;
+                    } catch (RuntimeException e) {
+                        outcome = Outcome.FAILURE;
+                    }
+                    long latency = System.nanoTime() - now;
+                    recorder.record(phase, outcome, latency, latency >= slowNanos, (int) TimeUnit.NANOSECONDS.toSeconds(now - start));
+                    try {
+                        Thread.sleep(settings.thinkMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "scenario-caller-" + i);
+            callers.add(caller);
+            caller.start();
+        }
+
+        TimeUnit.NANOSECONDS.sleep(faultStart - System.nanoTime());
+        backendCalls[1] = backendCalls(meterRegistry);
+        faults.apply(scenario.fault());
+        TimeUnit.NANOSECONDS.sleep(faultEnd - System.nanoTime());
+        faults.reset();
+        backendCalls[2] = backendCalls(meterRegistry);
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        backendCalls[3] = backendCalls(meterRegistry);
+
+        Long timeToOpen = firstTransitionTo(transitions, CircuitBreaker.State.OPEN, faultStart - start);
+        Long timeToRecover = timeToOpen == null ? null : timeToRecover(transitions, faultEnd - start);
+        Map<String, Object> backendCallsPerPhase = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            backendCallsPerPhase.put(phase.name().toLowerCase(), backendCalls[phase.ordinal() + 1] - backendCalls[phase.ordinal()]);
+        }
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("config", configName);
+        run.put("scenario", scenario.name().toLowerCase());
+        run.put("timeToOpenMillis", timeToOpen);
+        run.put("timeToRecoverMillis", timeToRecover);
+        run.put("wastedCalls", recorder.failedOrSlow(Phase.FAULT) + recorder.count(Phase.RECOVERY, Outcome.REJECTED));
+        run.put("backendCalls", backendCallsPerPhase);
+        run.put("finalState", breaker.getState());
+        run.put("phases", recorder.phases());
+        run.put("transitions", new ArrayList<>(transitions));
+        run.put("timeline", recorder.timeline());
+        return run;
+    }
+
+    // a breaker that opened and closed again during the fault has nothing left to recover from
+    private static Long timeToRecover(List<Map<String, Object>> transitions, long faultEndNanos) {
+        long faultEndMillis = TimeUnit.NANOSECONDS.toMillis(faultEndNanos);
+        CircuitBreaker.State stateAtFaultEnd = CircuitBreaker.State.CLOSED;
+        synchronized (transitions) {
+            for (Map<String, Object> transition : transitions) {
+                if ((long) transition.get("atMillis") <= faultEndMillis) {
+                    stateAtFaultEnd = (CircuitBreaker.State) transition.get("to");
+                }
+            }
+        }
+        return stateAtFaultEnd == CircuitBreaker.State.CLOSED
+                ? Long.valueOf(0) : firstTransitionTo(transitions, CircuitBreaker.State.CLOSED, faultEndNanos);
+    }
+
+    // executions of the getIngredients() supplier so far: calls not served by another one in flight, plus hedges
+    private static long backendCalls(MeterRegistry meterRegistry) {
+        return Math.round(count(meterRegistry, "singleflight.calls") - count(meterRegistry, "singleflight.shared")
+                + count(meterRegistry, "hedge.hedges"));
+    }
+
+    private static double count(MeterRegistry meterRegistry, String name) {
+        return meterRegistry.get(name).tag("name", "getIngredients").functionCounter().count();
+    }
+
+    // millis from phaseStart to the first transition into state at or after it
+    private static Long firstTransitionTo(List<Map<String, Object>> transitions, CircuitBreaker.State state, long phaseStartNanos) {
+        long phaseStartMillis = TimeUnit.NANOSECONDS.toMillis(phaseStartNanos);
+        synchronized (transitions) {
+            return transitions.stream()
+                    .filter(transition -> transition.get("to") == state && (long) transition.get("atMillis") >= phaseStartMillis)
+                    .map(transition -> (long) transition.get("atMillis") - phaseStartMillis)
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    private static final class Recorder {
+
+        private final LongAdder[][] outcomes = new LongAdder[Phase.values().length][Outcome.values().length];
+        private final LongAdder[] slow = new LongAdder[Phase.values().length];
+        private final Histogram[] latencies = new Histogram[Phase.values().length];
+        private final LongAdder[][] perSecond;
+
+        Recorder(int seconds) {
+            for (Phase phase : Phase.values()) {
+                for (Outcome outcome : Outcome.values()) {
+                    outcomes[phase.ordinal()][outcome.ordinal()] = new LongAdder();
+                }
+                slow[phase.ordinal()] = new LongAdder();
+                latencies[phase.ordinal()] = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+            }
+            perSecond = new LongAdder[seconds][Outcome.values().length];
+            for (LongAdder[] second : perSecond) {
+                for (int i = 0; i < second.length; i++) {
+                    second[i] = new LongAdder();
+                }
+            }
+        }
+
+        void record(Phase phase, Outcome outcome, long latencyNanos, boolean slowCall, int second) {
+            outcomes[phase.ordinal()][outcome.ordinal()].increment();
+            if (outcome != Outcome.REJECTED) {
+                // only successes, a slow failure is already counted as a failure
+                if (slowCall && outcome == Outcome.SUCCESS) {
+                    slow[phase.ordinal()].increment();
+                }
+                Histogram histogram = latencies[phase.ordinal()];
+                synchronized (histogram) {
+                    histogram.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+                }
+            }
+            perSecond[Math.min(second, perSecond.length - 1)][outcome.ordinal()].increment();
+        }
+
+        long count(Phase phase, Outcome outcome) {
+            return outcomes[phase.ordinal()][outcome.ordinal()].sum();
+        }
+
+        // failed calls plus successful but slow ones
+        long failedOrSlow(Phase phase) {
+            return count(phase, Outcome.FAILURE) + slow[phase.ordinal()].sum();
+        }
+
+        Map<String, Object> phases() {
+            Map<String, Object> phases = new LinkedHashMap<>();
+            for (Phase phase : Phase.values()) {
+                Histogram histogram = latencies[phase.ordinal()];
+                Map<String, Object> stats = new LinkedHashMap<>();
+                for (Outcome outcome : Outcome.values()) {
+                    stats.put(outcome.name().toLowerCase(), count(phase, outcome));
+                }
+                stats.put("slow", slow[phase.ordinal()].sum());
+                stats.put("p50Millis", histogram.getValueAtPercentile(50) / 1e6);
+                stats.put("p99Millis", histogram.getValueAtPercentile(99) / 1e6);
+                stats.put("maxMillis", histogram.getMaxValue() / 1e6);
+                phases.put(phase.name().toLowerCase(), stats);
+            }
+            return phases;
+        }
+
+        List<Map<String, Object>> timeline() {
+            List<Map<String, Object>> timeline = new ArrayList<>();
+            for (int second = 0; second < perSecond.length; second++) {
+                Map<String, Object> bucket = new LinkedHashMap<>();
+                bucket.put("second", second);
+                for (Outcome outcome : Outcome.values()) {
+                    bucket.put(outcome.name().toLowerCase(), perSecond[second][outcome.ordinal()].sum());
+                }
+                timeline.add(bucket);
+            }
+            return timeline;
+        }
+    }
+
+    private static final class Settings {
+        private final int callers;
+        private final int thinkMillis;
+        private final long healthyNanos;
+        private final long faultNanos;
+        private final long recoveryNanos;
+
+        Settings(int callers, int thinkMillis, long healthyNanos, long faultNanos, long recoveryNanos) {
+            this.callers = callers;
+            this.thinkMillis = thinkMillis;
+            this.healthyNanos = healthyNanos;
+            this.faultNanos = faultNanos;
+            this.recoveryNanos = recoveryNanos;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("callers", callers);
+            map.put("thinkMillis", thinkMillis);
+            map.put("healthySeconds", TimeUnit.NANOSECONDS.toSeconds(healthyNanos));
+            map.put("faultSeconds", TimeUnit.NANOSECONDS.toSeconds(faultNanos));
+            map.put("recoverySeconds", TimeUnit.NANOSECONDS.toSeconds(recoveryNanos));
+            return map;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package Resilience_modules;
+
+import exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead whose concurrency limit follows the observed latency instead of a fixed
+ * {@code maxConcurrentCalls} (gradient algorithm, as in Netflix concurrency-limits' Gradient2).
+ * A short and a long exponential average of the call latency are kept; while the short one stays
+ * within {@code tolerance} of the long one the limit grows by about sqrt(limit), when latency rises
+ * the limit shrinks proportionally. Calls over the limit are rejected immediately, there is no queue.
+ * Only successful calls are sampled: a failure (connection refused, a timeout) says nothing about how
+ * fast the backend serves, and fast failures would otherwise grow the limit while it is down. The
+ * estimate is updated by whichever completion gets the lock, the others drop their sample instead of
+ * waiting, so the hot path never blocks.
+ * Decorates suppliers and functions the same way {@code io.github.resilience4j.bulkhead.Bulkhead} does.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    @Getter
+    @Builder
+    public static class Config {
+        @Builder.Default
+        private final int initialLimit = 20;
+        @Builder.Default
+        private final int minLimit = 1;
+        @Builder.Default
+        private final int maxLimit = 200;
+        // how much slower than the long term latency the recent latency may get before the limit shrinks
+        @Builder.Default
+        private final double tolerance = 2.0;
+        @Builder.Default
+        private final double smoothing = 0.2;
+        @Builder.Default
+        private final int shortWindow = 10;
+        @Builder.Default
+        private final int longWindow = 600;
+    }
+
+    private final String name;
+
+    private final Config config;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile int limit;
+
+    private final ReentrantLock updating = new ReentrantLock();
+
+    // guarded by updating
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimiter(String name, Config config) {
+        this.name = name;
+        this.config = config;
+        this.estimatedLimit = config.getInitialLimit();
+        this.limit = config.getInitialLimit();
+    }
+
+    public static <T> Supplier<T> decorateSupplier(AdaptiveConcurrencyLimiter limiter, Supplier<T> supplier) {
+        return () -> {
+            limiter.acquirePermission();
+            long start = System.nanoTime();
+            T result;
+            try {
+                result = supplier.get();
+            } catch (Throwable t) {
+                limiter.onError();
+                throw t;
+            }
+            limiter.onSuccess(System.nanoTime() - start);
+            return result;
+        };
+    }
+
+    public static <T, R> Function<T, R> decorateFunction(AdaptiveConcurrencyLimiter limiter, Function<T, R> function) {
+        return t -> {
+            limiter.acquirePermission();
+            long start = System.nanoTime();
+            R result;
+            try {
+                result = function.apply(t);
+            } catch (Throwable e) {
+                limiter.onError();
+                throw e;
+            }
+            limiter.onSuccess(System.nanoTime() - start);
+            return result;
+        };
+    }
+
+    public boolean tryAcquirePermission() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void acquirePermission() {
+        if (!tryAcquirePermission()) {
+            throw new ConcurrencyLimitExceededException("Concurrency limit " + limit + " of '" + name + "' reached");
+        }
+    }
+
+    // one of onSuccess or onError must be called for every granted permission
+    public void onSuccess(long latencyNanos) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        if (updating.tryLock()) {
+            try {
+                update(latencyNanos, inFlightAtCompletion);
+            } finally {
+                updating.unlock();
+            }
+        }
+    }
+
+    public void onError() {
+        inFlight.decrementAndGet();
+    }
+
+    private void update(long latencyNanos, int inFlightAtCompletion) {
+        if (shortRtt == 0) {
+            shortRtt = latencyNanos;
+            longRtt = latencyNanos;
+            return;
+        }
+        shortRtt += (latencyNanos - shortRtt) * 2.0 / (config.getShortWindow() + 1);
+        longRtt += (latencyNanos - longRtt) * 2.0 / (config.getLongWindow() + 1);
+        // after a slow period let the long term average come back down quickly
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // far below the limit the latency says nothing about how much more the backend could take
+        if (inFlightAtCompletion < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, config.getTolerance() * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - config.getSmoothing()) + newLimit * config.getSmoothing();
+        estimatedLimit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public AdaptiveConcurrencyLimiter bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("adaptive.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("name", name)
+                .description("Current concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("adaptive.concurrency.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("name", name)
+                .description("Calls currently holding a permit")
+                .register(meterRegistry);
+        FunctionCounter.builder("adaptive.concurrency.rejected", rejected, LongAdder::sum)
+                .tag("name", name)
+                .description("Calls rejected because the limit was reached")
+                .register(meterRegistry);
+        return this;
+    }
+}
@@ -0,0 +1,90 @@
+package Resilience_modules;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking retries: no thread waits between attempts, the next attempt is a timer on the
+ * shared scheduler. Waits use decorrelated jitter ({@code min(maxDelay, random(baseDelay, 3 * previous wait))}),
+ * which spreads the retries of callers that failed together, and every retry is paid from the
+ * shared {@link RetryBudget}.
+ * The supplier is started on the scheduler thread, so it should only start the work (e.g.
+ * {@code CompletableFuture.supplyAsync(..., executor)}) and not do it.
+ */
+public class AsyncRetrier {
+
+    private final ScheduledExecutorService scheduler;
+
+    private final RetryBudget budget;
+
+    private final int maxAttempts;
+
+    private final long baseDelayMillis;
+
+    private final long maxDelayMillis;
+
+    private final Predicate<Throwable> retryable;
+
+    public AsyncRetrier(ScheduledExecutorService scheduler, RetryBudget budget, int maxAttempts,
+                        long baseDelayMillis, long maxDelayMillis, Predicate<Throwable> retryable) {
+        this.scheduler = scheduler;
+        this.budget = budget;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.retryable = retryable;
+    }
+
+    public <T> CompletionStage<T> execute(Supplier<? extends CompletionStage<T>> call) {
+        budget.deposit();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(call, result, 1, baseDelayMillis);
+        return result;
+    }
+
+    private <T> void attempt(Supplier<? extends CompletionStage<T>> call, CompletableFuture<T> result, int attempt, long previousDelayMillis) {
+        CompletionStage<T> stage;
+        try {
+            stage = call.get();
+        } catch (RuntimeException e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+        stage.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (attempt >= maxAttempts || !retryable.test(cause) || !budget.tryAcquire()) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            long delayMillis = nextDelay(previousDelayMillis);
+            try {
+                scheduler.schedule(() -> attempt(call, result, attempt + 1, delayMillis), delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    long nextDelay(long previousDelayMillis) {
+        long upper = Math.max(baseDelayMillis, previousDelayMillis * 3);
+        return Math.min(maxDelayMillis, ThreadLocalRandom.current().nextLong(baseDelayMillis, upper + 1));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
@@ -3,12 +3,11 @@ package Resilience_modules;
 import io.github.resilience4j.bulkhead.BulkheadConfig;
 import io.github.resilience4j.bulkhead.BulkheadRegistry;
 import io.github.resilience4j.bulkhead.annotation.Bulkhead;
-//import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import logging.EventLog;
 import model.Ingredient;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import service.IngredientService;
 
@@ -16,86 +15,139 @@ import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.StreamSupport;
 
+import static config.ExecutorConfiguration.RESILIENCE_EXECUTOR;
+import static logging.EventLog.Level.INFO;
+import static logging.EventLog.Level.WARN;
+
 @Service
 public class BulkheadService {
 
-    @Autowired
-    private IngredientService ingredientService;
+    private static final BulkheadConfig SUCCESSFUL_CONFIG = BulkheadConfig.custom()
+            .maxConcurrentCalls(2)
+            .maxWaitDuration(Duration.ofSeconds(2))
+            .build();
+
+    private static final BulkheadConfig EXCEPTION_CONFIG = BulkheadConfig.custom()
+            .maxConcurrentCalls(2)
+            .maxWaitDuration(Duration.ofSeconds(3))//
+            .build();
+
+    private static final BulkheadConfig EVENTS_CONFIG = BulkheadConfig.custom()
+            .maxWaitDuration(Duration.ofMillis(500))
+            .maxConcurrentCalls(6)
+            .build();
+
+    private final String INGREDIENTS_PROPERTY = "IngredientService"; //used in application.properties
+
+    private final IngredientService ingredientService;
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    // the suppliers block on the database, they must not run on the common ForkJoinPool
+    private final ExecutorService executor;
+
+    private final ResilientIngredientService resilientIngredientService;
 
+    // bulkheads are created once in the shared registry, permits are shared by all callers of a scenario
+    private final Supplier<List<Ingredient>> successfulSupplier;
 
-    private final String INGREDIENTS_PROPERTY = "IngredientService"; //used in application.yml
+    private final Supplier<List<Ingredient>> exceptionSupplier;
+
+    private final Supplier<List<Ingredient>> eventsSupplier;
+
+    private final Supplier<List<Ingredient>> metricsSupplier;
+
+    private final EventLog eventLog;
+
+    public BulkheadService(IngredientService ingredientService, ResilientIngredientService resilientIngredientService,
+                           BulkheadRegistry bulkheadRegistry, MeterRegistry meterRegistry,
+                           @Qualifier(RESILIENCE_EXECUTOR) ExecutorService executor, EventLog eventLog) {
+        this.ingredientService = ingredientService;
+        this.eventLog = eventLog;
+        this.resilientIngredientService = resilientIngredientService;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.executor = executor;
+
+        this.successfulSupplier = io.github.resilience4j.bulkhead.Bulkhead.decorateSupplier(
+                bulkheadRegistry.bulkhead("GetIngredientsSuccesfullyBulkhead", SUCCESSFUL_CONFIG),
+                () -> ingredientService.getIngredientsInOneSecond());
+        this.exceptionSupplier = io.github.resilience4j.bulkhead.Bulkhead.decorateSupplier(
+                bulkheadRegistry.bulkhead("GetIngredientsExceptionByBulkhead", EXCEPTION_CONFIG),
+                () -> ingredientService.getIngredientsInOneSecond());
+
+        io.github.resilience4j.bulkhead.Bulkhead events = bulkheadRegistry.bulkhead("GetIngredientsEventsByBulkhead", EVENTS_CONFIG);
+        // one event per call, sampled
+        events.getEventPublisher().onCallPermitted(e -> eventLog.sample(INFO, "bulkhead.call-permitted", "event", e));
+        events.getEventPublisher().onCallFinished(e -> eventLog.sample(INFO, "bulkhead.call-finished", "event", e));
+        events.getEventPublisher().onCallRejected(e -> eventLog.sample(WARN, "bulkhead.call-rejected", "event", e));
+        this.eventsSupplier = io.github.resilience4j.bulkhead.Bulkhead.decorateSupplier(
+                events, () -> ingredientService.getIngredientsTakingRandomTime());
+
+        // resilience4j.bulkhead.* meters of the shared registry are published to the actuator registry
+        io.github.resilience4j.bulkhead.Bulkhead metrics = bulkheadRegistry.bulkhead("GetIngredientsMetricsByBulkhead",
+                BulkheadConfig.custom().maxWaitDuration(Duration.ofMillis(500)).maxConcurrentCalls(8).build());
+        metrics.getEventPublisher().onCallPermitted(e -> printMetricDetails(meterRegistry));
+        metrics.getEventPublisher().onCallRejected(e -> printMetricDetails(meterRegistry));
+        metrics.getEventPublisher().onCallFinished(e -> printMetricDetails(meterRegistry));
+        this.metricsSupplier = io.github.resilience4j.bulkhead.Bulkhead.decorateSupplier(
+                metrics, () -> ingredientService.getIngredientsTakingRandomTime());
+    }
 
 
     @Bulkhead(name=INGREDIENTS_PROPERTY, fallbackMethod = "ingredientBulkHeadConcurrentCallsFallback")
     public List<Ingredient> ingredientBulkHeadConcurrentCallsFallback(){
-        System.out.println("Ingredient BUlkhead fallback called!");
+        eventLog.log(INFO, "bulkhead.fallback");
         return Collections.emptyList();
     }
 
     @Bulkhead(name=INGREDIENTS_PROPERTY, fallbackMethod = "ingredientBulkHeadFallback")
     public List<Ingredient> ingredientBulkHeadFallback(Exception e){
-        System.out.println("IngredientService is down!");
-       return Collections.emptyList();
+        eventLog.sample(WARN, "bulkhead.fallback", "cause", e);
+        return resilientIngredientService.lastKnownIngredients();
     }
 
     // Use cases
 
     void displayDefaultValues() {
-        BulkheadConfig config = BulkheadConfig.ofDefaults();
-        System.out.println("Max concurrent calls = " + config.getMaxConcurrentCalls());
-        System.out.println("Max wait duration = " + config.getMaxWaitDuration());
-        System.out.println("Writable stack trace enabled = " + config.isWritableStackTraceEnabled());
-        System.out.println("Fair call handling enabled = " + config.isFairCallHandlingEnabled());
+        BulkheadConfig config = bulkheadRegistry.getDefaultConfig();
+        eventLog.log(INFO, "bulkhead.config",
+                "maxConcurrentCalls", config.getMaxConcurrentCalls(),
+                "maxWaitDuration", config.getMaxWaitDuration(),
+                "writableStackTraceEnabled", config.isWritableStackTraceEnabled(),
+                "fairCallHandlingEnabled", config.isFairCallHandlingEnabled());
     }
 
     public List<Ingredient> GetIngredientsSuccesfullyBulkhead() {
-        BulkheadConfig config = BulkheadConfig.custom()
-                .maxConcurrentCalls(2)
-                .maxWaitDuration(Duration.ofSeconds(2))
-                .build();
-        BulkheadRegistry registry = BulkheadRegistry.of(config);
-        io.github.resilience4j.bulkhead.Bulkhead bulkhead = registry.bulkhead("IngredientService");
-
-
-        Supplier<List<Ingredient>> ingredientsSupplier = () -> ingredientService.getIngredientsInOneSecond();
-        Supplier<List<Ingredient>> decoratedIngredientsSupplier = io.github.resilience4j.bulkhead.Bulkhead.decorateSupplier(bulkhead, ingredientsSupplier);
+        Supplier<List<Ingredient>> decoratedIngredientsSupplier = successfulSupplier;
 
         for (int i=0; i<4; i++) {
             CompletableFuture
-                    .supplyAsync(decoratedIngredientsSupplier)
-                    .thenAccept(ingredients -> System.out.println("Received results"));
+                    .supplyAsync(decoratedIngredientsSupplier, executor)
+                    .thenAccept(ingredients -> eventLog.log(INFO, "bulkhead.demo.result", "ingredients", ingredients.size()));
         }
         return decoratedIngredientsSupplier.get();
     }
 
     public List<Ingredient> GetIngredientsExceptionByBulkhead() {
-        BulkheadConfig config = BulkheadConfig.custom()
-                .maxConcurrentCalls(2)
-                .maxWaitDuration(Duration.ofSeconds(3))//
-                .build();
-        BulkheadRegistry registry = BulkheadRegistry.of(config);
-        io.github.resilience4j.bulkhead.Bulkhead bulkhead = registry.bulkhead("IngredientService");
-
-
-        Supplier<List<Ingredient>> ingredientsSupplier = () -> ingredientService.getIngredientsInOneSecond();
-        Supplier<List<Ingredient>> decoratedIngredientsSupplier = io.github.resilience4j.bulkhead.Bulkhead.decorateSupplier(bulkhead, ingredientsSupplier);
+        Supplier<List<Ingredient>> decoratedIngredientsSupplier = exceptionSupplier;
 
         for (int i=0; i<7; i++) {
             CompletableFuture
-                    .supplyAsync(decoratedIngredientsSupplier)
+                    .supplyAsync(decoratedIngredientsSupplier, executor)
                     .whenComplete( (r, t) -> {
                         if (t != null) {
                             Throwable cause = t.getCause();
                             if (cause != null) {
-                                cause.printStackTrace();
+                                eventLog.log(WARN, "bulkhead.demo.failed", "cause", cause);
                             }
                         }
                         if (r != null) {
-                            System.out.println("Received results");
+                            eventLog.log(INFO, "bulkhead.demo.result", "ingredients", r.size());
                         }
                     });
         }
@@ -103,69 +155,42 @@ public class BulkheadService {
     }
 
     public List<Ingredient> GetIngredientsEventsByBulkhead() {
-        BulkheadConfig config = BulkheadConfig.custom()
-                .maxWaitDuration(Duration.ofMillis(500))
-                .maxConcurrentCalls(6)
-                .build();
-        BulkheadRegistry registry = BulkheadRegistry.of(config);
-        io.github.resilience4j.bulkhead.Bulkhead bulkhead = registry.bulkhead("IngredientService");
-
-        bulkhead.getEventPublisher().onCallPermitted(e -> System.out.println(e.toString()));
-        bulkhead.getEventPublisher().onCallFinished(e -> System.out.println(e.toString()));
-        bulkhead.getEventPublisher().onCallRejected(e -> System.out.println(e.toString()));
-
-
-        Supplier<List<Ingredient>> ingredientsSupplier = () -> ingredientService.getIngredientsTakingRandomTime();
-        Supplier<List<Ingredient>> decoratedIngredientsSupplier = io.github.resilience4j.bulkhead.Bulkhead.decorateSupplier(bulkhead, ingredientsSupplier);
+        Supplier<List<Ingredient>> decoratedIngredientsSupplier = eventsSupplier;
 
         for (int i=0; i<8; i++) {
             CompletableFuture
-                    .supplyAsync(decoratedIngredientsSupplier)
+                    .supplyAsync(decoratedIngredientsSupplier, executor)
                     .whenComplete( (r, t) -> {
                         if (t != null) {
-                            t.printStackTrace();
+                            eventLog.log(WARN, "bulkhead.demo.failed", "cause", t);
                         }
                         if (r != null) {
-                            System.out.println("Received results");
+                            eventLog.log(INFO, "bulkhead.demo.result", "ingredients", r.size());
                         }
                     });
         }
         return decoratedIngredientsSupplier.get();
     }
 
-    // Import Errors in Gradle..
-//    public List<Ingredient> GetIngredientsMetricsByBulkhead() {
-//        BulkheadConfig config = BulkheadConfig.custom()
-//                .maxWaitDuration(Duration.ofMillis(500))
-//                .maxConcurrentCalls(8)
-//                .build();
-//        BulkheadRegistry registry = BulkheadRegistry.of(config);
-//        io.github.resilience4j.bulkhead.Bulkhead bulkhead = registry.bulkhead("IngredientService");
-//
-//        MeterRegistry meterRegistry = new SimpleMeterRegistry();
-//        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
-//
-//        bulkhead.getEventPublisher().onCallPermitted(e -> printMetricDetails(meterRegistry));
-//        bulkhead.getEventPublisher().onCallRejected(e -> printMetricDetails(meterRegistry));
-//        bulkhead.getEventPublisher().onCallFinished(e -> printMetricDetails(meterRegistry));
-//
-//
-//        Supplier<List<Ingredient>> ingredientsSupplier = () -> ingredientService.getIngredientsTakingRandomTime();
-//        Supplier<List<Ingredient>> decoratedIngredientsSupplier = io.github.resilience4j.bulkhead.Bulkhead.decorateSupplier(bulkhead, ingredientsSupplier);
-//
-//        for (int i=0; i<5; i++) {
-//            CompletableFuture.supplyAsync(decoratedIngredientsSupplier)
-//                    .whenComplete( (r, t) -> {
-//                        if (r != null) {
-//                            System.out.println("Received results");
-//                        }
-//                    });
-//        }
-//        return decoratedIngredientsSupplier.get();
-//    }
+    public List<Ingredient> GetIngredientsMetricsByBulkhead() {
+        Supplier<List<Ingredient>> decoratedIngredientsSupplier = metricsSupplier;
+
+        for (int i=0; i<5; i++) {
+            CompletableFuture.supplyAsync(decoratedIngredientsSupplier, executor)
+                    .whenComplete( (r, t) -> {
+                        if (r != null) {
+                            eventLog.log(INFO, "bulkhead.demo.result", "ingredients", r.size());
+                        }
+                    });
+        }
+        return decoratedIngredientsSupplier.get();
+    }
 
     void printMetricDetails(MeterRegistry meterRegistry) {
         Consumer<Meter> meterConsumer = meter -> {
+            if (!meter.getId().getName().startsWith("resilience4j.bulkhead")) {
+                return;
+            }
             String desc = meter.getId().getDescription();
             String metricName = meter.getId().getName();
             Double metricValue = StreamSupport.stream(meter.measure().spliterator(), false)
@@ -173,7 +198,7 @@ public class BulkheadService {
                     .findFirst()
                     .map(m -> m.getValue())
                     .orElse(0.0);
-            System.out.println(desc + " - " + metricName + ": " + metricValue);
+            eventLog.log(INFO, "bulkhead.metric", "name", metricName, "value", metricValue, "description", desc);
         };
         meterRegistry.forEachMeter(meterConsumer);
     }
@@ -183,7 +208,7 @@ public class BulkheadService {
         try {
             Thread.sleep(seconds * 1000);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -1,49 +1,192 @@
 package Resilience_modules;
 import failues.AlwaysSlowNSeconds;
 import failures.SucceedNTimesAndThenFail;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import logging.EventLog;
 import model.Ingredient;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Bean;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import service.IngredientClient;
 import service.IngredientService;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.StreamSupport;
 
+import static config.ExecutorConfiguration.RESILIENCE_EXECUTOR;
+import static config.ExecutorConfiguration.RESILIENCE_SCHEDULER;
+import static logging.EventLog.Level.INFO;
+import static logging.EventLog.Level.WARN;
+
 @Service
 public class CircuitBreakerService {
 
-    @Autowired
-    private IngredientService ingredientService;
-
-    @Autowired
-    private RestTemplate restTemplate;
+    private static final CircuitBreakerConfig COUNT_BASED_FAILED_CALLS_CONFIG = CircuitBreakerConfig
+            .custom()
+            .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+            .slidingWindowSize(10)
+            .failureRateThreshold(70.0f)
+            .build();
+
+    private static final CircuitBreakerConfig COUNT_BASED_SLOW_CALLS_CONFIG = CircuitBreakerConfig
+            .custom()
+            .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+            .slidingWindowSize(5) // max number of requests before OPEN CIRCUIT
+            .slowCallRateThreshold(70.0f)
+            .slowCallDurationThreshold(Duration.ofSeconds(2))
+            .build();
+
+    private static final CircuitBreakerConfig COUNT_BASED_FAILED_AND_SLOW_CALLS_CONFIG = CircuitBreakerConfig
+            .custom()
+            .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+            .slidingWindowSize(10)
+            .failureRateThreshold(70.0f)
+            .slowCallRateThreshold(70.0f)
+            .slowCallDurationThreshold(Duration.ofSeconds(2))
+            .build();
+
+    private static final CircuitBreakerConfig TIME_BASED_CONFIG = CircuitBreakerConfig
+            .custom()
+            .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.TIME_BASED)
+            .minimumNumberOfCalls(3)
+            .slidingWindowSize(10)
+            .failureRateThreshold(70.0f)
+            .build();
+
+    private static final CircuitBreakerConfig OPEN_AND_THEN_CLOSE_CONFIG = CircuitBreakerConfig
+            .custom()
+            .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+            .slidingWindowSize(10)
+            .failureRateThreshold(25.0f)
+            .waitDurationInOpenState(Duration.ofSeconds(10))
+            .permittedNumberOfCallsInHalfOpenState(4)
+            .build();
+
+    private final IngredientService ingredientService;
+
+    private final IngredientClient ingredientClient;
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    // one breaker per scenario, created once in the shared registry so the sliding windows survive between calls
+    private final Supplier<List<Ingredient>> countBasedFailedCallsSupplier;
+
+    private final Supplier<List<Ingredient>> countBasedSlowCallsSupplier;
+
+    private final Supplier<List<Ingredient>> countBasedFailedAndSlowCallsSupplier;
+
+    private final Supplier<List<Ingredient>> timeBasedFailedCallsSupplier;
+
+    private final Supplier<List<Ingredient>> timeBasedSlowCallsSupplier;
+
+    private final Supplier<List<Ingredient>> openAndThenCloseSupplier;
+
+    private final Supplier<List<Ingredient>> eventsSupplier;
+
+    private final Supplier<List<Ingredient>> metricsSupplier;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ResilientIngredientService resilientIngredientService;
+
+    private final EventLog eventLog;
+
+    // TimeoutFailure on the resilience executor, bounded by the time limiter, counted by the breaker, admitted by the bulkhead
+    private final Supplier<CompletionStage<List<Ingredient>>> timeLimitedTimeoutFailureSupplier;
+
+    public CircuitBreakerService(IngredientService ingredientService,
+                                 ResilientIngredientService resilientIngredientService,
+                                 IngredientClient ingredientClient,
+                                 CircuitBreakerRegistry circuitBreakerRegistry,
+                                 TimeLimiterRegistry timeLimiterRegistry,
+                                 BulkheadRegistry bulkheadRegistry,
+                                 MeterRegistry meterRegistry,
+                                 @Qualifier(RESILIENCE_EXECUTOR) ExecutorService executor,
+                                 @Qualifier(RESILIENCE_SCHEDULER) ScheduledExecutorService scheduler,
+                                 EventLog eventLog) {
+        this.ingredientService = ingredientService;
+        this.eventLog = eventLog;
+        this.resilientIngredientService = resilientIngredientService;
+        this.ingredientClient = ingredientClient;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.meterRegistry = meterRegistry;
+
+        this.countBasedFailedCallsSupplier = decorate("countBasedSlidingWindow_FailedCalls", COUNT_BASED_FAILED_CALLS_CONFIG);
+        this.countBasedSlowCallsSupplier = decorate("countBasedSlidingWindow_SlowCalls", COUNT_BASED_SLOW_CALLS_CONFIG);
+        this.countBasedFailedAndSlowCallsSupplier = decorate("countBasedSlidingWindow_Failed_And_SlowCalls", COUNT_BASED_FAILED_AND_SLOW_CALLS_CONFIG);
+        this.timeBasedFailedCallsSupplier = decorate("timeBasedSlidingWindow_FailedCalls", TIME_BASED_CONFIG);
+        this.timeBasedSlowCallsSupplier = decorate("timeBasedSlidingWindow_SlowCalls", TIME_BASED_CONFIG);
+
+        io.github.resilience4j.circuitbreaker.CircuitBreaker openAndThenClose =
+                circuitBreakerRegistry.circuitBreaker("circuitBreakerOpenAndThenClose", OPEN_AND_THEN_CLOSE_CONFIG);
+        // errors and rejections come once per call and are sampled, transitions are rare and always logged
+        openAndThenClose.getEventPublisher().onCallNotPermitted(e -> {
+            eventLog.sample(WARN, "circuitbreaker.call-not-permitted", "event", e);
+            // just to simulate lag so the circuitbreaker can change state
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        openAndThenClose.getEventPublisher().onError(e -> eventLog.sample(WARN, "circuitbreaker.error", "event", e));
+        openAndThenClose.getEventPublisher().onStateTransition(e -> eventLog.log(INFO, "circuitbreaker.state-transition", "event", e));
+        this.openAndThenCloseSupplier = openAndThenClose.decorateSupplier(() -> ingredientService.getIngredients());
+
+        io.github.resilience4j.circuitbreaker.CircuitBreaker events =
+                circuitBreakerRegistry.circuitBreaker("getIngredientsCircuitBreakerEvents", COUNT_BASED_FAILED_CALLS_CONFIG);
+        events.getEventPublisher()
+                .onCallNotPermitted(e -> eventLog.sample(WARN, "circuitbreaker.call-not-permitted", "event", e));
+        events.getEventPublisher().onError(e -> eventLog.sample(WARN, "circuitbreaker.error", "event", e));
+        events.getEventPublisher()
+                .onFailureRateExceeded(e -> eventLog.log(WARN, "circuitbreaker.failure-rate-exceeded", "event", e));
+        events.getEventPublisher().onStateTransition(e -> eventLog.log(INFO, "circuitbreaker.state-transition", "event", e));
+        this.eventsSupplier = events.decorateSupplier(() -> ingredientService.getIngredients());
+
+        io.github.resilience4j.circuitbreaker.CircuitBreaker metrics =
+                circuitBreakerRegistry.circuitBreaker("getIngredientsCircuitBreakerMetrics", COUNT_BASED_FAILED_CALLS_CONFIG);
+        metrics.getEventPublisher()
+                .onCallNotPermitted(e -> printMetricDetails(meterRegistry));
+        metrics.getEventPublisher().onError(e -> printMetricDetails(meterRegistry));
+        metrics.getEventPublisher()
+                .onFailureRateExceeded(e -> printMetricDetails(meterRegistry));
+        metrics.getEventPublisher().onStateTransition(e -> printMetricDetails(meterRegistry));
+        this.metricsSupplier = metrics.decorateSupplier(() -> ingredientService.getIngredients());
+
+        TimeLimiter timeLimiter = timeLimiterRegistry.timeLimiter(CIRCUIT_BREAKER_INGREDIENTS_PROPERTY);
+        io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker =
+                circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER_INGREDIENTS_PROPERTY);
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(CIRCUIT_BREAKER_INGREDIENTS_PROPERTY);
+        this.timeLimitedTimeoutFailureSupplier = Bulkhead.decorateCompletionStage(bulkhead,
+                io.github.resilience4j.circuitbreaker.CircuitBreaker.decorateCompletionStage(circuitBreaker,
+                        timeLimiter.decorateCompletionStage(scheduler, () -> supplyInterruptibly(this::TimeoutFailure, executor))));
+    }
 
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    private Supplier<List<Ingredient>> decorate(String name, CircuitBreakerConfig config) {
+        return circuitBreakerRegistry.circuitBreaker(name, config).decorateSupplier(() -> ingredientService.getIngredients());
     }
 
     public List<Ingredient> TimeoutFailure() {
-        ResponseEntity<Ingredient> response =
-                restTemplate.getForEntity("http://localhost:8081/ingredient", Ingredient.class);
-        return Collections.emptyList();
+        return ingredientClient.getIngredients();
     }
 
     private final String CIRCUIT_BREAKER_INGREDIENTS_PROPERTY = "IngredientService"; //used in application.yml
@@ -53,209 +196,149 @@ public class CircuitBreakerService {
         return TimeoutFailure();
     }
 
-    public List<Ingredient> ingredientFallback(Exception e) {
-        System.out.println("CircuitBreaker fallback method... Couldn't get the ingredients :(");
-        return Collections.emptyList();
+    public CompletableFuture<List<Ingredient>> GetIngredientsTimeoutErrorAsync() {
+        CompletionStage<List<Ingredient>> ingredients;
+        try {
+            ingredients = timeLimitedTimeoutFailureSupplier.get();
+        } catch (RuntimeException e) {
+            // bulkhead full or breaker open are thrown before any stage exists
+            ingredients = CompletableFuture.failedFuture(e);
+        }
+        return ingredients.toCompletableFuture()
+                .exceptionally(e -> ingredientFallback(e instanceof Exception ? (Exception) e : new RuntimeException(e)));
+    }
+
+    // like supplyAsync, but completing the future first (the time limiter's timeout) interrupts the worker still running it,
+    // which gives up on the blocked downstream call and gives the thread back (the connection once the exchange has ended)
+    private static <T> CompletableFuture<T> supplyInterruptibly(Supplier<T> supplier, ExecutorService executor) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                try {
+                    result.complete(supplier.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                task.cancel(true);
+            }
+        });
+        return result;
     }
 
-    static DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss SSS");
+    public List<Ingredient> ingredientFallback(Exception e) {
+        eventLog.sample(WARN, "circuitbreaker.fallback", "cause", e);
+        return resilientIngredientService.lastKnownIngredients();
+    }
 
     void displayDefaultValues() {
-        CircuitBreakerConfig config = CircuitBreakerConfig.ofDefaults();
-        System.out.println("failureRateThreshold = " + config.getFailureRateThreshold());
-        System.out.println("minimumNumberOfCalls = " + config.getMinimumNumberOfCalls());
-        System.out.println("permittedNumberOfCallsInHalfOpenState = " + config.getPermittedNumberOfCallsInHalfOpenState());
-        System.out.println("maxWaitDurationInHalfOpenState = " + config.getMaxWaitDurationInHalfOpenState());
-        System.out.println("slidingWindowSize = " + config.getSlidingWindowSize());
-        System.out.println("slidingWindowType = " + config.getSlidingWindowType());
-        System.out.println("slowCallRateThreshold = " + config.getSlowCallRateThreshold());
-        System.out.println("slowCallDurationThreshold = " + config.getSlowCallDurationThreshold());
-        System.out.println("automaticTransitionFromOpenToHalfOpenEnabled = " + config.isAutomaticTransitionFromOpenToHalfOpenEnabled());
-        System.out.println("writableStackTraceEnabled = " + config.isWritableStackTraceEnabled());
+        CircuitBreakerConfig config = circuitBreakerRegistry.getDefaultConfig();
+        eventLog.log(INFO, "circuitbreaker.config",
+                "failureRateThreshold", config.getFailureRateThreshold(),
+                "minimumNumberOfCalls", config.getMinimumNumberOfCalls(),
+                "permittedNumberOfCallsInHalfOpenState", config.getPermittedNumberOfCallsInHalfOpenState(),
+                "maxWaitDurationInHalfOpenState", config.getMaxWaitDurationInHalfOpenState());
+        eventLog.log(INFO, "circuitbreaker.config",
+                "slidingWindowSize", config.getSlidingWindowSize(),
+                "slidingWindowType", config.getSlidingWindowType(),
+                "slowCallRateThreshold", config.getSlowCallRateThreshold(),
+                "slowCallDurationThreshold", config.getSlowCallDurationThreshold());
+        eventLog.log(INFO, "circuitbreaker.config",
+                "automaticTransitionFromOpenToHalfOpenEnabled", config.isAutomaticTransitionFromOpenToHalfOpenEnabled(),
+                "writableStackTraceEnabled", config.isWritableStackTraceEnabled());
     }
 
     public List<Ingredient> countBasedSlidingWindow_FailedCalls() {
-        CircuitBreakerConfig config = CircuitBreakerConfig
-                .custom()
-                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
-                .slidingWindowSize(10)
-                .failureRateThreshold(70.0f)
-                .build();
-        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
-        io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker = registry.circuitBreaker("IngredientService");
-
         ingredientService.setPotentialFailure(new SucceedNTimesAndThenFail(10));
 
-        Supplier<List<Ingredient>> ingredientsSupplier = () -> ingredientService.getIngredients();
-        Supplier<List<Ingredient>> decoratedIngredientsSupplier = circuitBreaker.decorateSupplier(ingredientsSupplier);
-
         for (int i = 0; i < 20; i++) {
             try {
-                System.out.println("Getting results...");
-                System.out.println(decoratedIngredientsSupplier.get());
+                eventLog.log(INFO, "circuitbreaker.demo.result", "ingredients", countBasedFailedCallsSupplier.get());
             } catch (Exception e) {
-                System.out.println("Circuit breaker should be open and not permit further requests..");
-//                e.printStackTrace();
+                eventLog.log(INFO, "circuitbreaker.demo.rejected", "cause", e);
             }
         }
-        return decoratedIngredientsSupplier.get();
+        return countBasedFailedCallsSupplier.get();
     }
 
 
     public List<Ingredient> countBasedSlidingWindow_SlowCalls() {
-        CircuitBreakerConfig config = CircuitBreakerConfig
-                .custom()
-                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
-                .slidingWindowSize(5) // max number of requests before OPEN CIRCUIT
-                .slowCallRateThreshold(70.0f)
-                .slowCallDurationThreshold(Duration.ofSeconds(2))
-                .build();
-        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
-        io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker = registry.circuitBreaker("IngredientService");
-
         ingredientService.setPotentialDelay(new AlwaysSlowNSeconds(2));
 
-        Supplier<List<Ingredient>> ingredientSupplier = circuitBreaker.decorateSupplier(() -> ingredientService.getIngredients());
-
         for (int i = 0; i < 20; i++) {
             try {
-                System.out.println("Getting results...");
-                System.out.println(ingredientSupplier.get());
+                eventLog.log(INFO, "circuitbreaker.demo.result", "ingredients", countBasedSlowCallsSupplier.get());
             } catch (Exception e) {
-                System.out.println("Circuit breaker should be open and not permit further requests..");
-//                e.printStackTrace();
+                eventLog.log(INFO, "circuitbreaker.demo.rejected", "cause", e);
             }
         }
-        return ingredientSupplier.get();
+        return countBasedSlowCallsSupplier.get();
     }
 
     public List<Ingredient> countBasedSlidingWindow_Failed_And_SlowCalls() {
-        CircuitBreakerConfig config = CircuitBreakerConfig
-                .custom()
-                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
-                .slidingWindowSize(10)
-                .failureRateThreshold(70.0f)
-                .slowCallRateThreshold(70.0f)
-                .slowCallDurationThreshold(Duration.ofSeconds(2))
-                .build();
-        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
-        io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker = registry.circuitBreaker("IngredientService");
-
         ingredientService.setPotentialDelay(new AlwaysSlowNSeconds(2));
 
-        Supplier<List<Ingredient>> ingredientSupplier = circuitBreaker.decorateSupplier(() -> ingredientService.getIngredients());
-
         for (int i = 0; i < 20; i++) {
             try {
-                System.out.println("Getting results...");
-                System.out.println(ingredientSupplier.get());
+                eventLog.log(INFO, "circuitbreaker.demo.result", "ingredients", countBasedFailedAndSlowCallsSupplier.get());
             } catch (Exception e) {
-                System.out.println("Circuit breaker should be half/open and not permit further requests..");
-//                e.printStackTrace();
+                eventLog.log(INFO, "circuitbreaker.demo.rejected", "cause", e);
             }
         }
-        return ingredientSupplier.get();
+        return countBasedFailedAndSlowCallsSupplier.get();
     }
 
     public List<Ingredient> timeBasedSlidingWindow_FailedCalls() {
-        CircuitBreakerConfig config = CircuitBreakerConfig
-                .custom()
-                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.TIME_BASED)
-                .minimumNumberOfCalls(3)
-                .slidingWindowSize(10)
-                .failureRateThreshold(70.0f)
-                .build();
-        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
-        io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker = registry.circuitBreaker("IngredientService");
-
         ingredientService.setPotentialFailure(new SucceedNTimesAndThenFail(3));
         ingredientService.setPotentialDelay(new AlwaysSlowNSeconds(0));
 
-        Supplier<List<Ingredient>> ingredientSupplier = circuitBreaker.decorateSupplier(() -> ingredientService.getIngredients());
-
         for (int i = 0; i < 20; i++) {
             try {
-                System.out.println("Getting results...");
-                System.out.println(ingredientSupplier.get());
+                eventLog.log(INFO, "circuitbreaker.demo.result", "ingredients", timeBasedFailedCallsSupplier.get());
             } catch (Exception e) {
-                System.out.println("Circuit breaker should be half/open and not permit further requests..");
-//                e.printStackTrace();
+                eventLog.log(INFO, "circuitbreaker.demo.rejected", "cause", e);
             }
         }
-        return ingredientSupplier.get();
+        return timeBasedFailedCallsSupplier.get();
     }
 
     public List<Ingredient> timeBasedSlidingWindow_SlowCalls() {
-        CircuitBreakerConfig config = CircuitBreakerConfig
-                .custom()
-                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.TIME_BASED)
-                .minimumNumberOfCalls(3)
-                .slidingWindowSize(10)
-                .failureRateThreshold(70.0f)
-                .build();
-        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
-        io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker = registry.circuitBreaker("IngredientService");
-
         ingredientService.setPotentialDelay(new AlwaysSlowNSeconds(1));
 
-        Supplier<List<Ingredient>> ingredientSupplier = circuitBreaker.decorateSupplier(() -> ingredientService.getIngredients());
-
-        System.out.println("Start time: " + LocalDateTime.now().format(formatter));
+        eventLog.log(INFO, "circuitbreaker.demo.start");
 
         for (int i = 0; i < 20; i++) {
             try {
-                System.out.println("Getting results...");
-                System.out.println(ingredientSupplier.get());
+                eventLog.log(INFO, "circuitbreaker.demo.result", "ingredients", timeBasedSlowCallsSupplier.get());
             } catch (Exception e) {
-                System.out.println("Circuit breaker should be half/open and not permit further requests..");
-//                e.printStackTrace();
+                eventLog.log(INFO, "circuitbreaker.demo.rejected", "cause", e);
             }
         }
-        return ingredientSupplier.get();
+        return timeBasedSlowCallsSupplier.get();
     }
 
     public List<Ingredient> circuitBreakerOpenAndThenClose() {
-        CircuitBreakerConfig config = CircuitBreakerConfig
-                .custom()
-                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
-                .slidingWindowSize(10)
-                .failureRateThreshold(25.0f)
-                .waitDurationInOpenState(Duration.ofSeconds(10))
-                .permittedNumberOfCallsInHalfOpenState(4)
-                .build();
-        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
-        io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker = registry.circuitBreaker("IngredientService");
-
-        circuitBreaker.getEventPublisher().onCallNotPermitted(e -> {
-            System.out.println(e.toString());
-            // just to simulate lag so the circuitbreaker can change state
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException interruptedException) {
-                interruptedException.printStackTrace();
-            }
-        });
-        circuitBreaker.getEventPublisher().onError(e -> System.out.println(e.toString()));
-        circuitBreaker.getEventPublisher().onStateTransition(e -> System.out.println(e.toString()));
-
-
         ingredientService.setPotentialFailure(new failures.SucceedXTimesFailYTimesAndThenSucceed(4, 4));
 
-        Supplier<List<Ingredient>> ingredientSupplier = circuitBreaker.decorateSupplier(() -> ingredientService.getIngredients());
-
-        System.out.println("Start time: " + LocalDateTime.now().format(formatter));
+        eventLog.log(INFO, "circuitbreaker.demo.start");
 
         for (int i=0; i<50; i++) {
             try {
-                System.out.println(ingredientSupplier.get());
+                eventLog.log(INFO, "circuitbreaker.demo.result", "ingredients", openAndThenCloseSupplier.get());
                 Thread.sleep(1000);
             }
             catch (Exception e) {
-//                e.printStackTrace();
-                System.out.println("Failing on purpose to open the circuit...");
+                eventLog.log(INFO, "circuitbreaker.demo.failed", "cause", e);
             }
         }
-        return ingredientSupplier.get();
+        return openAndThenCloseSupplier.get();
     }
 
 
@@ -298,81 +381,39 @@ public class CircuitBreakerService {
     }
 
     public List<Ingredient> getIngredientsCircuitBreakerEvents() {
-        CircuitBreakerConfig config = CircuitBreakerConfig
-                .custom()
-                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
-                .slidingWindowSize(10)
-                .failureRateThreshold(70.0f)
-                .build();
-        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
-        io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker = registry.circuitBreaker("IngredientService");
-
-        circuitBreaker.getEventPublisher()
-                .onCallNotPermitted(e -> System.out.println(e.toString()));
-        circuitBreaker.getEventPublisher().onError(e -> System.out.println(e.toString()));
-        circuitBreaker.getEventPublisher()
-                .onFailureRateExceeded(e -> System.out.println(e.toString()));
-        circuitBreaker.getEventPublisher().onStateTransition(e -> System.out.println(e.toString()));
-
         ingredientService.setPotentialFailure(new SucceedNTimesAndThenFail(3));
 
-
-        Supplier<List<Ingredient>> ingredientSupplier = circuitBreaker.decorateSupplier(() ->
-                ingredientService.getIngredients());
-
         for (int i = 0; i < 20; i++) {
             try {
-                System.out.println(ingredientSupplier.get());
+                eventLog.log(INFO, "circuitbreaker.demo.result", "ingredients", eventsSupplier.get());
             } catch (Exception e) {
             }
         }
-        return ingredientSupplier.get();
+        return eventsSupplier.get();
     }
 
     public List<Ingredient> getIngredientsCircuitBreakerMetrics() {
-//        CircuitBreakerConfig config = CircuitBreakerConfig
-//                .custom()
-//                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
-//                .slidingWindowSize(10)
-//                .failureRateThreshold(70.0f)
-//                .build();
-//        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
-//        io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker = registry.circuitBreaker("IngredientService");
-//
-//        MeterRegistry meterRegistry = new SimpleMeterRegistry();
-//        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry)
-//                .bindTo(meterRegistry);
-//
-//        circuitBreaker.getEventPublisher()
-//                .onCallNotPermitted(e -> printMetricDetails(meterRegistry));
-//        circuitBreaker.getEventPublisher().onError(e -> printMetricDetails(meterRegistry));
-//        circuitBreaker.getEventPublisher()
-//                .onFailureRateExceeded(e -> printMetricDetails(meterRegistry));
-//        circuitBreaker.getEventPublisher().onStateTransition(e -> printMetricDetails(meterRegistry));
-//
-//
-//        ingredientService.setPotentialFailure(new SucceedNTimesAndThenFail(3));
-//
-//        Supplier<List<Ingredient>> ingredientsSupplier = circuitBreaker
-//                .decorateSupplier(() -> ingredientService.getIngredients());
-//
-//        for (int i = 0; i < 20; i++) {
-//            try {
-//                Thread.sleep(1000);
-//                System.out.println("\ngetting results and CIRCUITBREAKER Metric config: ");
-//                System.out.println(ingredientsSupplier.get());
-//
-//            } catch (Exception e) {
-//                System.out.println("Failing on point/CircuitBreaker OPEN");
-//            }
-//        }
-//        printMetricDetails(meterRegistry);
-//        return ingredientsSupplier.get();
-        return Collections.emptyList();
+        // the breaker lives in the shared registry, its resilience4j.circuitbreaker.* meters are already on /actuator/metrics
+        ingredientService.setPotentialFailure(new SucceedNTimesAndThenFail(3));
+
+        for (int i = 0; i < 20; i++) {
+            try {
+                Thread.sleep(1000);
+                eventLog.log(INFO, "circuitbreaker.demo.result", "ingredients", metricsSupplier.get());
+
+            } catch (Exception e) {
+                eventLog.log(INFO, "circuitbreaker.demo.rejected", "cause", e);
+            }
+        }
+        printMetricDetails(meterRegistry);
+        return metricsSupplier.get();
     }
 
     void printMetricDetails(MeterRegistry meterRegistry) {
         Consumer<Meter> meterConsumer = meter -> {
+            if (!meter.getId().getName().startsWith("resilience4j.circuitbreaker")) {
+                return;
+            }
             String desc = meter.getId().getDescription();
             String metricName = meter.getId().getName();
             String tagName = "";
@@ -392,12 +433,11 @@ public class CircuitBreakerService {
                     .findFirst()
                     .map(m -> m.getValue())
                     .orElse(0.0);
-            System.out.print(desc + " - " + metricName + ": " + metricValue);
             if (!tagValue.isEmpty()) {
-                System.out.println(", " + tagName + ": " + tagValue);
+                eventLog.log(INFO, "circuitbreaker.metric", "name", metricName, "value", metricValue, tagName, tagValue, "description", desc);
             }
             else {
-                System.out.println();
+                eventLog.log(INFO, "circuitbreaker.metric", "name", metricName, "value", metricValue, "description", desc);
             }
         };
         meterRegistry.forEachMeter(meterConsumer);
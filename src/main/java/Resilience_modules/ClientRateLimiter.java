@@ -0,0 +1,70 @@
+package Resilience_modules;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One {@link TokenBucket} per client for a single named limit. The buckets live in a bounded Caffeine
+ * cache, so a flood of distinct clients evicts the least valuable ones instead of growing the heap; a
+ * bucket evicted after {@code idleExpiry} would have been full again anyway.
+ */
+public class ClientRateLimiter {
+
+    private final String name;
+
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    private final Cache<String, TokenBucket> buckets;
+
+    private final LongAdder allowed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    public ClientRateLimiter(String name, double permitsPerSecond, int burst, long maxClients, Duration idleExpiry) {
+        this.name = name;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleExpiry)
+                .build();
+    }
+
+    /**
+     * @return 0 when the client may proceed, otherwise the nanoseconds until it may try again
+     */
+    public long tryAcquire(String client) {
+        long now = System.nanoTime();
+        long wait = buckets.get(client, key -> new TokenBucket(permitsPerSecond, burst, now)).tryAcquire(now);
+        (wait == 0 ? allowed : rejected).increment();
+        return wait;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ClientRateLimiter bindTo(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("rate.limit.allowed", allowed, LongAdder::sum)
+                .tag("limit", name)
+                .description("Requests admitted by the per-client rate limit")
+                .register(meterRegistry);
+        FunctionCounter.builder("rate.limit.rejected", rejected, LongAdder::sum)
+                .tag("limit", name)
+                .description("Requests refused with 429 by the per-client rate limit")
+                .register(meterRegistry);
+        Gauge.builder("rate.limit.clients", buckets, Cache::estimatedSize)
+                .tag("limit", name)
+                .description("Clients with a tracked bucket")
+                .register(meterRegistry);
+        return this;
+    }
+}
@@ -0,0 +1,90 @@
+package Resilience_modules;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer ring that never blocks or refuses a publisher: once full, every publish
+ * overwrites the oldest entry. Readers keep their own cursor and tell from the sequence numbers how
+ * many entries were overwritten before they got to them.
+ */
+public class EventRing<T> {
+
+    public static final class Entry<T> {
+
+        private final long sequence;
+
+        private final T value;
+
+        Entry(long sequence, T value) {
+            this.sequence = sequence;
+            this.value = value;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry<T>> slots;
+
+    private final int mask;
+
+    private final AtomicLong next = new AtomicLong();
+
+    public EventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public long publish(T value) {
+        long sequence = next.getAndIncrement();
+        Entry<T> entry = new Entry<>(sequence, value);
+        int index = (int) sequence & mask;
+        while (true) {
+            Entry<T> current = slots.get(index);
+            // a publisher that lapped this one already took the slot, this entry counts as overwritten
+            if (current != null && current.sequence > sequence) {
+                return sequence;
+            }
+            if (slots.compareAndSet(index, current, entry)) {
+                return sequence;
+            }
+        }
+    }
+
+    // sequence the next publish gets, a new reader starting here only sees what comes after it
+    public long head() {
+        return next.get();
+    }
+
+    /**
+     * Adds up to {@code max} entries from {@code cursor} on to {@code out}, in order.
+     *
+     * @return the cursor to continue from; it moved past more entries than were added when some were overwritten
+     */
+    public long read(long cursor, int max, List<Entry<T>> out) {
+        long published = next.get();
+        long position = Math.max(cursor, published - slots.length());
+        int added = 0;
+        while (added < max && position < published) {
+            Entry<T> entry = slots.get((int) position & mask);
+            if (entry == null || entry.sequence < position) {
+                // claimed but not written yet, the next read picks it up
+                break;
+            }
+            if (entry.sequence == position) {
+                out.add(entry);
+                added++;
+            }
+            position++;
+        }
+        return position;
+    }
+}
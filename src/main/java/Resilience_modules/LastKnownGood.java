@@ -0,0 +1,116 @@
+package Resilience_modules;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Last successful result of a read, for fallbacks to serve instead of an empty answer
+ * (stale-while-revalidate). A snapshot older than {@code maxStaleness} is not served any more.
+ * Serving a stale snapshot starts a background refresh, at most one at a time and at most one per
+ * {@code refreshInterval}, so the snapshot is replaced as soon as the backend answers again.
+ */
+public class LastKnownGood<T> {
+
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot<T> {
+        private final T value;
+        private final Instant capturedAt;
+        private final boolean stale;
+
+        public Duration age(Clock clock) {
+            return Duration.between(capturedAt, clock.instant());
+        }
+    }
+
+    private final Executor executor;
+
+    private final Duration maxStaleness;
+
+    private final Duration refreshInterval;
+
+    private final Clock clock;
+
+    private final AtomicReference<Snapshot<T>> current = new AtomicReference<>();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Instant lastRefresh = Instant.EPOCH;
+
+    private final LongAdder served = new LongAdder();
+
+    public LastKnownGood(Executor executor, Duration maxStaleness, Duration refreshInterval, Clock clock) {
+        this.executor = executor;
+        this.maxStaleness = maxStaleness;
+        this.refreshInterval = refreshInterval;
+        this.clock = clock;
+    }
+
+    public Snapshot<T> update(T value) {
+        Snapshot<T> snapshot = new Snapshot<>(value, clock.instant(), false);
+        current.set(snapshot);
+        return snapshot;
+    }
+
+    // the last snapshot marked stale, empty if there is none or it is too old to be trusted
+    public Optional<Snapshot<T>> serveStale(Supplier<T> refresh) {
+        Snapshot<T> snapshot = current.get();
+        if (snapshot == null || snapshot.age(clock).compareTo(maxStaleness) > 0) {
+            return Optional.empty();
+        }
+        served.increment();
+        refreshInBackground(refresh);
+        return Optional.of(new Snapshot<>(snapshot.getValue(), snapshot.getCapturedAt(), true));
+    }
+
+    private void refreshInBackground(Supplier<T> refresh) {
+        Instant now = clock.instant();
+        if (Duration.between(lastRefresh, now).compareTo(refreshInterval) < 0 || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        lastRefresh = now;
+        try {
+            executor.execute(() -> {
+                try {
+                    update(refresh.get());
+                } catch (RuntimeException e) {
+                    // still down, the next stale read tries again after refreshInterval
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+        }
+    }
+
+    public LastKnownGood<T> bindTo(MeterRegistry meterRegistry, String name) {
+        Gauge.builder("last.known.good.age", this, store -> {
+                    Snapshot<T> snapshot = store.current.get();
+                    return snapshot == null ? Double.NaN : snapshot.age(clock).toMillis() / 1000.0;
+                })
+                .tag("name", name)
+                .baseUnit("seconds")
+                .description("Age of the snapshot fallbacks would serve")
+                .register(meterRegistry);
+        FunctionCounter.builder("last.known.good.served", served, LongAdder::sum)
+                .tag("name", name)
+                .description("Stale snapshots served by fallbacks")
+                .register(meterRegistry);
+        return this;
+    }
+}
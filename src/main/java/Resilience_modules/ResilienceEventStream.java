@@ -0,0 +1,254 @@
+package Resilience_modules;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import response.ResilienceEvent;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Every event of every circuit breaker, retry and bulkhead in the shared registries (also the ones
+ * created later) goes into one {@link EventRing}; the publishing call only allocates the entry.
+ * A shared scheduler ticks every SSE subscriber, the subscriber then reads the ring from its cursor
+ * and writes its response on a writer thread of its own. A write blocks only that thread, and a
+ * subscriber whose write has been blocked for longer than {@code send-timeout} is dropped, so a slow
+ * client delays neither the other streams nor the calls being observed.
+ */
+@Component
+public class ResilienceEventStream implements DisposableBean {
+
+    static final int BATCH_SIZE = 256;
+
+    private final EventRing<ResilienceEvent> ring;
+
+    private final Set<Object> observed = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("resilience-events-"));
+
+    // at most one thread per subscriber, a subscriber is not ticked again while its write is running
+    private final ExecutorService writers = Executors.newCachedThreadPool(new CustomizableThreadFactory("resilience-events-writer-"));
+
+    private final Duration pollInterval;
+
+    private final Duration heartbeat;
+
+    private final Duration timeout;
+
+    private final Duration sendTimeout;
+
+    private final LongAdder published = new LongAdder();
+
+    private final LongAdder stalled = new LongAdder();
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public ResilienceEventStream(CircuitBreakerRegistry circuitBreakerRegistry,
+                                 RetryRegistry retryRegistry,
+                                 BulkheadRegistry bulkheadRegistry,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${resilience.events.capacity:4096}") int capacity,
+                                 @Value("${resilience.events.poll-interval:200ms}") Duration pollInterval,
+                                 @Value("${resilience.events.heartbeat:15s}") Duration heartbeat,
+                                 @Value("${resilience.events.timeout:30m}") Duration timeout,
+                                 @Value("${resilience.events.send-timeout:10s}") Duration sendTimeout) {
+        this.ring = new EventRing<>(capacity);
+        this.pollInterval = pollInterval;
+        this.heartbeat = heartbeat;
+        this.timeout = timeout;
+        this.sendTimeout = sendTimeout;
+
+        // listen for new instances first, observe() skips the ones seen twice
+        circuitBreakerRegistry.getEventPublisher().onEntryAdded(e -> observe(e.getAddedEntry()));
+        retryRegistry.getEventPublisher().onEntryAdded(e -> observe(e.getAddedEntry()));
+        bulkheadRegistry.getEventPublisher().onEntryAdded(e -> observe(e.getAddedEntry()));
+        circuitBreakerRegistry.getAllCircuitBreakers().forEach(this::observe);
+        retryRegistry.getAllRetries().forEach(this::observe);
+        bulkheadRegistry.getAllBulkheads().forEach(this::observe);
+
+        FunctionCounter.builder("resilience.events.published", published, LongAdder::sum)
+                .description("Circuit breaker, retry and bulkhead events put on the SSE ring")
+                .register(meterRegistry);
+        Gauge.builder("resilience.events.subscribers", subscribers, AtomicInteger::get)
+                .description("Open /resilience/events streams")
+                .register(meterRegistry);
+        FunctionCounter.builder("resilience.events.stalled", stalled, LongAdder::sum)
+                .description("Streams dropped because a write was blocked for longer than the send timeout")
+                .register(meterRegistry);
+    }
+
+    private void observe(CircuitBreaker circuitBreaker) {
+        if (observed.add(circuitBreaker)) {
+            circuitBreaker.getEventPublisher().onEvent(e -> publish(new ResilienceEvent("circuitbreaker",
+                    e.getCircuitBreakerName(), e.getEventType().name(), e.getCreationTime(), e)));
+        }
+    }
+
+    private void observe(Retry retry) {
+        if (observed.add(retry)) {
+            retry.getEventPublisher().onEvent(e -> publish(new ResilienceEvent("retry",
+                    e.getName(), e.getEventType().name(), e.getCreationTime(), e)));
+        }
+    }
+
+    private void observe(Bulkhead bulkhead) {
+        if (observed.add(bulkhead)) {
+            bulkhead.getEventPublisher().onEvent(e -> publish(new ResilienceEvent("bulkhead",
+                    e.getBulkheadName(), e.getEventType().name(), e.getCreationTime(), e)));
+        }
+    }
+
+    public void publish(ResilienceEvent event) {
+        ring.publish(event);
+        published.increment();
+    }
+
+    /**
+     * Streams the events published from now on, or from right after {@code lastEventId} while those
+     * are still in the ring. Empty {@code types} and a null {@code name} let everything through.
+     */
+    public SseEmitter subscribe(Long lastEventId, Set<String> types, String name) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        // an id from before a restart is ahead of the ring, such a client just continues live
+        long head = ring.head();
+        Subscription subscription = new Subscription(emitter, lastEventId == null ? head : Math.min(lastEventId + 1, head), types, name);
+        subscribers.incrementAndGet();
+        subscription.task = ticker.scheduleWithFixedDelay(subscription::tick, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        emitter.onCompletion(subscription::stop);
+        emitter.onTimeout(subscription::stop);
+        emitter.onError(e -> subscription.stop());
+        return emitter;
+    }
+
+    @Override
+    public void destroy() {
+        ticker.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    private final class Subscription {
+
+        private final SseEmitter emitter;
+
+        private final Set<String> types;
+
+        private final String name;
+
+        private final List<EventRing.Entry<ResilienceEvent>> batch = new ArrayList<>(BATCH_SIZE);
+
+        private long cursor;
+
+        private long lastSentNanos = System.nanoTime();
+
+        private final AtomicBoolean writing = new AtomicBoolean();
+
+        private volatile long writeStartNanos;
+
+        private volatile boolean stopped;
+
+        volatile ScheduledFuture<?> task;
+
+        Subscription(SseEmitter emitter, long cursor, Set<String> types, String name) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.types = types;
+            this.name = name;
+        }
+
+        // on the ticker: hands the delivery to a writer thread, or drops the subscriber whose write hangs
+        void tick() {
+            if (writing.compareAndSet(false, true)) {
+                writeStartNanos = System.nanoTime();
+                try {
+                    writers.execute(this::deliver);
+                } catch (RejectedExecutionException e) {
+                    writing.set(false);
+                }
+            } else if (System.nanoTime() - writeStartNanos > sendTimeout.toNanos()) {
+                stalled.increment();
+                // not completing the emitter here, that would wait for the blocked write to give up
+                stop();
+            }
+        }
+
+        void stop() {
+            stopped = true;
+            ScheduledFuture<?> current = task;
+            if (current != null && current.cancel(false)) {
+                subscribers.decrementAndGet();
+            }
+        }
+
+        private void deliver() {
+            try {
+                if (stopped) {
+                    return;
+                }
+                long from;
+                do {
+                    batch.clear();
+                    from = cursor;
+                    cursor = ring.read(from, BATCH_SIZE, batch);
+                    long overwritten = cursor - from - batch.size();
+                    if (overwritten > 0) {
+                        send(SseEmitter.event().name("dropped").data(Map.of("count", overwritten), MediaType.APPLICATION_JSON));
+                    }
+                    for (EventRing.Entry<ResilienceEvent> entry : batch) {
+                        ResilienceEvent event = entry.getValue();
+                        if ((types.isEmpty() || types.contains(event.getType())) && (name == null || name.equals(event.getName()))) {
+                            send(SseEmitter.event()
+                                    .id(String.valueOf(entry.getSequence()))
+                                    .name(event.getModule())
+                                    .data(event, MediaType.APPLICATION_JSON));
+                        }
+                    }
+                } while (batch.size() == BATCH_SIZE);
+                if (System.nanoTime() - lastSentNanos > heartbeat.toNanos()) {
+                    send(SseEmitter.event().comment("keep-alive"));
+                }
+            } catch (IOException | RuntimeException e) {
+                // client gone or emitter already completed, onCompletion/onError cancel this task
+                emitter.completeWithError(e);
+            } finally {
+                writing.set(false);
+                if (stopped) {
+                    // completed or dropped meanwhile, a no-op in the first case
+                    emitter.complete();
+                }
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            emitter.send(event);
+            lastSentNanos = System.nanoTime();
+        }
+    }
+}
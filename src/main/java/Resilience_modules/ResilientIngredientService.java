@@ -0,0 +1,109 @@
+package Resilience_modules;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import model.Ingredient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import service.IngredientService;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static config.ExecutorConfiguration.RESILIENCE_EXECUTOR;
+
+/**
+ * Read paths of {@link IngredientService} wrapped in retry, circuit breaker and an adaptive
+ * concurrency limit per operation. The instances come from the shared registries (configured in
+ * application.properties) and the decorated callables are built once, a call only pays for the
+ * decoration itself. Every successful list read is kept as the last known good snapshot, which is
+ * served (marked stale) when the protected call fails.
+ */
+@Service
+public class ResilientIngredientService {
+
+    private static final String INGREDIENTS_PROPERTY = "IngredientService";
+
+    private static final String GET_INGREDIENTS_MICROSERVICE_PROPERTY = "ServiceGetIngredients";
+
+    private final Supplier<List<Ingredient>> getIngredients;
+
+    private final Function<Long, Ingredient> getIngredient;
+
+    // one per operation: a full findAll next to cached id lookups would read as a latency spike to a shared one
+    private final AdaptiveConcurrencyLimiter getIngredientsLimiter;
+
+    private final AdaptiveConcurrencyLimiter getIngredientLimiter;
+
+    private final LastKnownGood<List<Ingredient>> lastKnownIngredients;
+
+    public ResilientIngredientService(IngredientService ingredientService,
+                                      CircuitBreakerRegistry circuitBreakerRegistry,
+                                      RetryRegistry retryRegistry,
+                                      MeterRegistry meterRegistry,
+                                      RetryBudget retryBudget,
+                                      @Qualifier(RESILIENCE_EXECUTOR) ExecutorService executor,
+                                      @Value("${ingredient.fallback.max-staleness:1h}") Duration maxStaleness,
+                                      @Value("${ingredient.fallback.refresh-interval:5s}") Duration refreshInterval,
+                                      @Value("${ingredient.limiter.initial-limit:20}") int initialLimit,
+                                      @Value("${ingredient.limiter.min-limit:2}") int minLimit,
+                                      @Value("${ingredient.limiter.max-limit:200}") int maxLimit,
+                                      @Value("${ingredient.limiter.tolerance:2.0}") double tolerance) {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(INGREDIENTS_PROPERTY);
+        Retry retry = retryRegistry.retry(GET_INGREDIENTS_MICROSERVICE_PROPERTY);
+        AdaptiveConcurrencyLimiter.Config limiterConfig = AdaptiveConcurrencyLimiter.Config.builder()
+                .initialLimit(initialLimit)
+                .minLimit(minLimit)
+                .maxLimit(maxLimit)
+                .tolerance(tolerance)
+                .build();
+        this.getIngredientsLimiter = new AdaptiveConcurrencyLimiter(INGREDIENTS_PROPERTY + ".getIngredients", limiterConfig)
+                .bindTo(meterRegistry);
+        this.getIngredientLimiter = new AdaptiveConcurrencyLimiter(INGREDIENTS_PROPERTY + ".getIngredient", limiterConfig)
+                .bindTo(meterRegistry);
+        this.lastKnownIngredients = new LastKnownGood<List<Ingredient>>(executor, maxStaleness, refreshInterval, Clock.systemUTC())
+                .bindTo(meterRegistry, "ingredients");
+
+        // limiter innermost so a retried attempt takes a new permit; the breaker's and the limiter's rejections
+        // are in the retry's ignore-exceptions and fail fast, real failures are retried from the shared budget
+        this.getIngredients = RetryBudget.decorateSupplier(retryBudget, retry,
+                CircuitBreaker.decorateSupplier(circuitBreaker,
+                        AdaptiveConcurrencyLimiter.decorateSupplier(getIngredientsLimiter, ingredientService::getIngredients)));
+        this.getIngredient = RetryBudget.decorateFunction(retryBudget, retry,
+                CircuitBreaker.decorateFunction(circuitBreaker,
+                        AdaptiveConcurrencyLimiter.decorateFunction(getIngredientLimiter, ingredientService::getIngredient)));
+    }
+
+    public List<Ingredient> getIngredients() {
+        return lastKnownIngredients.update(getIngredients.get()).getValue();
+    }
+
+    // fresh result, or the last known good one (marked stale) while the backend fails
+    public LastKnownGood.Snapshot<List<Ingredient>> getIngredientsOrLastKnown() {
+        try {
+            return lastKnownIngredients.update(getIngredients.get());
+        } catch (RuntimeException e) {
+            return lastKnownIngredients.serveStale(getIngredients).orElseThrow(() -> e);
+        }
+    }
+
+    // used by the annotation based fallbacks, empty only when there is no snapshot young enough to serve
+    public List<Ingredient> lastKnownIngredients() {
+        return lastKnownIngredients.serveStale(getIngredients)
+                .map(LastKnownGood.Snapshot::getValue)
+                .orElse(Collections.emptyList());
+    }
+
+    public Ingredient getIngredient(Long id) {
+        return getIngredient.apply(id);
+    }
+}
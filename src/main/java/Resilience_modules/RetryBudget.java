@@ -0,0 +1,103 @@
+package Resilience_modules;
+
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Token bucket shared by all retries: every call deposits {@code ratio} of a token (up to
+ * {@code maxTokens}), every retry takes a whole one. While the backend fails, retries are therefore
+ * capped at about {@code ratio} of the calls instead of multiplying them by the attempt count.
+ * A call finding the bucket empty fails with its own error instead of retrying.
+ */
+public class RetryBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final long deposit;
+
+    private final long maxTokens;
+
+    // in thousandths of a token, starts full so an isolated failure can always be retried
+    private final AtomicLong tokens;
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder exhausted = new LongAdder();
+
+    public RetryBudget(double ratio, int maxTokens) {
+        this.deposit = (long) (ratio * TOKEN);
+        this.maxTokens = maxTokens * TOKEN;
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    /**
+     * Like {@link Retry#decorateSupplier(Retry, Supplier)}, with every retry paid from the budget.
+     */
+    public static <T> Supplier<T> decorateSupplier(RetryBudget budget, Retry retry, Supplier<T> supplier) {
+        Predicate<Throwable> retryable = retry.getRetryConfig().getExceptionPredicate();
+        int maxAttempts = retry.getRetryConfig().getMaxAttempts();
+        return () -> {
+            budget.deposit();
+            Retry.Context<T> context = retry.context();
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    T result = supplier.get();
+                    context.onComplete();
+                    return result;
+                } catch (RuntimeException e) {
+                    if (attempt < maxAttempts && retryable.test(e) && !budget.tryAcquire()) {
+                        throw e;
+                    }
+                    // rethrows once the attempts are used up or e is not retried, waits otherwise
+                    context.onRuntimeError(e);
+                }
+            }
+        };
+    }
+
+    public static <T, R> Function<T, R> decorateFunction(RetryBudget budget, Retry retry, Function<T, R> function) {
+        return t -> decorateSupplier(budget, retry, () -> function.apply(t)).get();
+    }
+
+    public void deposit() {
+        tokens.getAndUpdate(current -> Math.min(maxTokens, current + deposit));
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            long current = tokens.get();
+            if (current < TOKEN) {
+                exhausted.increment();
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - TOKEN)) {
+                retries.increment();
+                return true;
+            }
+        }
+    }
+
+    public RetryBudget bindTo(MeterRegistry meterRegistry, String name) {
+        Gauge.builder("retry.budget.tokens", tokens, current -> current.get() / (double) TOKEN)
+                .tag("name", name)
+                .description("Retries currently affordable")
+                .register(meterRegistry);
+        FunctionCounter.builder("retry.budget.retries", retries, LongAdder::sum)
+                .tag("name", name)
+                .description("Retries paid from the budget")
+                .register(meterRegistry);
+        FunctionCounter.builder("retry.budget.exhausted", exhausted, LongAdder::sum)
+                .tag("name", name)
+                .description("Retries skipped because the budget was empty")
+                .register(meterRegistry);
+        return this;
+    }
+}
@@ -4,19 +4,15 @@ import failures.*;
 import failures.FailNTimes;
 import io.github.resilience4j.core.IntervalFunction;
 import io.github.resilience4j.core.metrics.Metrics;
-//import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
 import io.github.resilience4j.retry.RetryConfig;
 import io.github.resilience4j.retry.RetryRegistry;
 import io.github.resilience4j.retry.annotation.Retry;
-//import io.micrometer.core.instrument.Meter;
-//import io.micrometer.core.instrument.MeterRegistry;
-//import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import logging.EventLog;
 import model.Ingredient;
 import org.hibernate.dialect.identity.Ingres9IdentityColumnSupport;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -32,23 +28,75 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.StreamSupport;
 
+import static config.ExecutorConfiguration.RESILIENCE_EXECUTOR;
 import static java.time.temporal.ChronoUnit.SECONDS;
+import static logging.EventLog.Level.INFO;
+import static logging.EventLog.Level.WARN;
 
 @Service
 public class RetryingService {
 
-    @Autowired
-    private IngredientService ingredientService;
+    private static final RetryConfig EXPONENTIAL_CONFIG = RetryConfig.custom().
+            maxAttempts(6).
+            intervalFunction(IntervalFunction.ofExponentialBackoff(1000, 2)).
+            build();
 
-    private final String GET_INGREDIENTS_MICROSERVICE_PROPERTY = "ServiceGetIngredients"; // Used in application.yml
+    private static final RetryConfig RANDOM_CONFIG = RetryConfig.custom().
+            maxAttempts(4).
+            intervalFunction(IntervalFunction.ofRandomized(5000)).
+            build();
 
-    private final String ADD_INGREDIENT_MICROSERVICE_PROPERTY = "ServiceAddIngredient"; // Used in application.yml
+    private final String GET_INGREDIENTS_MICROSERVICE_PROPERTY = "ServiceGetIngredients"; // Used in application.properties
+
+    private final String ADD_INGREDIENT_MICROSERVICE_PROPERTY = "ServiceAddIngredient"; // Used in application.properties
+
+    private final IngredientService ingredientService;
+
+    // retries are taken from the shared registry once, the decorated suppliers are reused by every call
+    private final Supplier<List<Ingredient>> defaultRetryingGetIngredients;
+
+    private final Supplier<List<Ingredient>> exponentialRetryingGetIngredients;
+
+    private final Supplier<List<Ingredient>> randomRetryingGetIngredients;
+
+    private final Supplier<List<Ingredient>> metricsRetryingGetIngredients;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService executor;
+
+    private final AsyncRetrier asyncRetrier;
+
+    private final ResilientIngredientService resilientIngredientService;
+
+    private final EventLog eventLog;
+
+    public RetryingService(IngredientService ingredientService, ResilientIngredientService resilientIngredientService,
+                           RetryRegistry retryRegistry, MeterRegistry meterRegistry,
+                           @Qualifier(RESILIENCE_EXECUTOR) ExecutorService executor,
+                           AsyncRetrier asyncRetrier, EventLog eventLog) {
+        this.ingredientService = ingredientService;
+        this.eventLog = eventLog;
+        this.resilientIngredientService = resilientIngredientService;
+        this.meterRegistry = meterRegistry;
+        this.executor = executor;
+        this.asyncRetrier = asyncRetrier;
+        Supplier<List<Ingredient>> getIngredientSupplier = () -> ingredientService.getIngredients();
+
+        this.defaultRetryingGetIngredients = io.github.resilience4j.retry.Retry.decorateSupplier(
+                retryRegistry.retry("defaultGetIngredientsConfigUsage", RetryConfig.ofDefaults()), getIngredientSupplier);
+        this.exponentialRetryingGetIngredients = io.github.resilience4j.retry.Retry.decorateSupplier(
+                retryRegistry.retry("getIngredientsIntervalFunction_Exponential", EXPONENTIAL_CONFIG), getIngredientSupplier);
+        this.randomRetryingGetIngredients = io.github.resilience4j.retry.Retry.decorateSupplier(
+                retryRegistry.retry("getIngredientsIntervalFunction_Random", RANDOM_CONFIG), getIngredientSupplier);
+        this.metricsRetryingGetIngredients = io.github.resilience4j.retry.Retry.decorateSupplier(
+                retryRegistry.retry("getIngredientsRetryMetrics", RetryConfig.custom().maxAttempts(3).build()), getIngredientSupplier);
+    }
 
     @Retry(name = GET_INGREDIENTS_MICROSERVICE_PROPERTY, fallbackMethod = "retryGetIngredientsFallback")
     public List<Ingredient> getIngredientsTrowingException() throws Exception {
@@ -61,134 +109,83 @@ public class RetryingService {
     }
 
     public List<Ingredient> retryGetIngredientsFallback(Exception e) {
-        System.out.println("Retried to get the data, no succes :(");
-        return Collections.emptyList();
+        eventLog.sample(WARN, "retry.fallback", "cause", e);
+        return resilientIngredientService.lastKnownIngredients();
     }
 
     public Ingredient retryAddIngredientFallback(Exception e) {
-        System.out.println("Tried to add an ingredient, no succes :(");
+        eventLog.sample(WARN, "retry.add-fallback", "cause", e);
         return null;
     }
 
 
     public List<Ingredient> defaultGetIngredientsConfigUsage() {
         // Successful API Call.  Flow: request->response
-        RetryConfig config = RetryConfig.ofDefaults();
-        RetryRegistry registry = RetryRegistry.of(config);
-        io.github.resilience4j.retry.Retry retry = registry.retry("IngredientService", config);
-
-        Supplier<List<Ingredient>> getIngredientSupplier = () -> ingredientService.getIngredients();
-
-        System.out.println(getIngredientSupplier.get());
+        eventLog.log(INFO, "retry.demo.result", "ingredients", ingredientService.getIngredients());
 
-        Supplier<List<Ingredient>> retryingGetIngredients = io.github.resilience4j.retry.Retry.decorateSupplier(retry, getIngredientSupplier);
+        eventLog.log(INFO, "retry.demo.result", "ingredients", defaultRetryingGetIngredients.get());
 
-        System.out.println(retryingGetIngredients.get());
-
-        return retryingGetIngredients.get();
+        return defaultRetryingGetIngredients.get();
     }
 
-    public List<Ingredient> basicGetIngredientsUsage() {
-        // Fail Request with basic config Flow: -> reqeust->fail -> Retrying 4 Times. 5th Success -> send response
-        RetryConfig config = RetryConfig.custom().maxAttempts(5).waitDuration(Duration.of(2, SECONDS)).build();
-        RetryRegistry registry = RetryRegistry.of(config);
-        io.github.resilience4j.retry.Retry retry = registry.retry("IngredientService", config);
+    // attempts run on the resilience executor, the waits in between are timers on the shared scheduler
+    public CompletionStage<List<Ingredient>> getIngredientsAsync() {
+        return asyncRetrier.execute(() -> CompletableFuture.supplyAsync(ingredientService::getIngredients, executor));
+    }
 
+    public CompletionStage<List<Ingredient>> basicGetIngredientsUsage() {
+        // Fail Request with basic config Flow: -> reqeust->fail -> Retrying 4 Times with jittered waits. 5th Success -> send response
         ingredientService.setPotentialFailure(new FailNTimes(4));
-        Supplier<List<Ingredient>> getIngredientSupplier = () -> ingredientService.getIngredients();
-
-        Supplier<List<Ingredient>> retryingGetIngredients = io.github.resilience4j.retry.Retry.decorateSupplier(retry, getIngredientSupplier);
-        System.out.println(retryingGetIngredients.get());
-        return retryingGetIngredients.get();
+        return getIngredientsAsync().thenApply(ingredients -> {
+            eventLog.log(INFO, "retry.demo.result", "ingredients", ingredients);
+            return ingredients;
+        });
     }
 
     public List<Ingredient> getIngredientsIntervalFunction_Exponential() {
         //Fail request, exponential retrying time. Flow: request: fail-> Retrying 5 times (2^n time wait):fail -> 6th time-> get response
-        RetryConfig config = RetryConfig.custom().
-                maxAttempts(6).
-                intervalFunction(IntervalFunction.ofExponentialBackoff(1000, 2)).
-                build();
-
-        RetryRegistry registry = RetryRegistry.of(config);
-
-        io.github.resilience4j.retry.Retry retry = registry.retry("IngredientService", config);
-
         ingredientService.setPotentialFailure(new FailNTimes(5));
-        Supplier<List<Ingredient>> getIngredientSupplier = () -> ingredientService.getIngredients();
-
-        Supplier<List<Ingredient>> retryingGetIngredients = io.github.resilience4j.retry.Retry.decorateSupplier(retry, getIngredientSupplier);
-        System.out.println(retryingGetIngredients.get());
-        return retryingGetIngredients.get();
+        eventLog.log(INFO, "retry.demo.result", "ingredients", exponentialRetryingGetIngredients.get());
+        return exponentialRetryingGetIngredients.get();
     }
 
     public List<Ingredient> getIngredientsIntervalFunction_Random() {
         // same with random time wait instead of exponential. random within 5 seconds.
-        RetryConfig config = RetryConfig.custom().
-                maxAttempts(4).
-                intervalFunction(IntervalFunction.ofRandomized(5000)).
-                build();
-        RetryRegistry registry = RetryRegistry.of(config);
-
-        io.github.resilience4j.retry.Retry retry = registry.retry("IngredientService", config);
-
         ingredientService.setPotentialFailure(new FailNTimes(3));
-        Supplier<List<Ingredient>> getIngredientSupplier = () -> ingredientService.getIngredients();
-
-        Supplier<List<Ingredient>> retryingGetIngredients = io.github.resilience4j.retry.Retry.decorateSupplier(retry, getIngredientSupplier);
-        System.out.println(retryingGetIngredients.get());
-        return retryingGetIngredients.get();
+        eventLog.log(INFO, "retry.demo.result", "ingredients", randomRetryingGetIngredients.get());
+        return randomRetryingGetIngredients.get();
     }
 
-    public List<Ingredient> getIngredientsAsyncRetryExample(){
-        // async threading retry.
-        RetryConfig config = RetryConfig.custom().maxAttempts(5).waitDuration(Duration.of(1, SECONDS)).build();
-        RetryRegistry registry = RetryRegistry.of(config);
-
+    public CompletionStage<List<Ingredient>> getIngredientsAsyncRetryExample(){
+        // async threading retry, nothing blocks while the attempts and waits are running
         ingredientService.setPotentialFailure(new FailNTimes(4));
-        io.github.resilience4j.retry.Retry retry = registry.retry("IngredientService", config);
+        return getIngredientsAsync().thenAccept(ingredients -> eventLog.log(INFO, "retry.demo.result", "ingredients", ingredients))
+                .thenApply(ignored -> Collections.<Ingredient>emptyList());
+    }
 
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-        Supplier<CompletionStage<List<Ingredient>>> completionStageSupplier = () -> CompletableFuture.supplyAsync(() -> ingredientService.getIngredients());
-        retry.executeCompletionStage(scheduler, completionStageSupplier).thenAccept(System.out::println);
 
-        try {
-            Thread.sleep(70000); //wait for the other thread to end
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    public List<Ingredient> getIngredientsRetryMetrics() {
+        // resilience4j.retry.calls is published for every retry of the shared registry, read it back from the actuator registry
+        for (int i=0; i<10; i++) {
+            ingredientService.setPotentialFailure(new FailHalfTheTime(2));
+            eventLog.log(INFO, "retry.demo.result", "ingredients", metricsRetryingGetIngredients.get());
         }
-        scheduler.shutdown();
+
+        Consumer<Meter> meterConsumer = meter -> {
+            if (!"getIngredientsRetryMetrics".equals(meter.getId().getTag("name"))) {
+                return;
+            }
+            String desc = meter.getId().getDescription();
+            String metricName = meter.getId().getTag("kind");
+            Double metricValue = StreamSupport.stream(meter.measure().spliterator(), false).
+                    filter(m -> m.getStatistic().name().equals("COUNT")).
+                    findFirst().
+                    map(m -> m.getValue()).
+                    orElse(0.0);
+            eventLog.log(INFO, "retry.metric", "kind", metricName, "value", metricValue, "description", desc);
+        };
+        meterRegistry.forEachMeter(meterConsumer);
         return Collections.emptyList();
     }
 
-
-// Import Errors in Gradle
-//    public List<Ingredient> getIngredientsRetryMetrics() {
-//        RetryConfig config = RetryConfig.custom().maxAttempts(3).build();
-//        RetryRegistry retryRegistry = RetryRegistry.of(config);
-//        io.github.resilience4j.retry.Retry retry = retryRegistry.retry("IngredientService", config);
-//
-//        MeterRegistry meterRegistry = new SimpleMeterRegistry();
-//        TaggedRetryMetrics.ofRetryRegistry(retryRegistry).bindTo(meterRegistry);
-//
-//        Supplier<List<Ingredient>> ingredients = io.github.resilience4j.retry.Retry.decorateSupplier(retry, () -> ingredientService.getIngredients());
-//
-//        for (int i=0; i<10; i++) {
-//            ingredientService.setPotentialFailure(new FailHalfTheTime(2));
-//            System.out.println(ingredients.get());
-//        }
-//
-//        Consumer<Meter> meterConsumer = meter -> {
-//            String desc = meter.getId().getDescription();
-//            String metricName = meter.getId().getTag("kind");
-//            Double metricValue = StreamSupport.stream(meter.measure().spliterator(), false).
-//                    filter(m -> m.getStatistic().name().equals("COUNT")).
-//                    findFirst().
-//                    map(m -> m.getValue()).
-//                    orElse(0.0);
-//            System.out.println(desc + " - " + metricName + ": " + metricValue);
-//        };
-//        meterRegistry.forEachMeter(meterConsumer);
-//        return Collections.emptyList();
-//    }
-
 }
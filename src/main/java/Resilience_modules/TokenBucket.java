@@ -0,0 +1,42 @@
+package Resilience_modules;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket refilled at {@code permitsPerSecond} and holding at most {@code burst} tokens.
+ * The whole state is one timestamp, the time at which the bucket would be full again (GCRA); a call
+ * takes a token by moving it one interval forward with a CAS, and is refused while that would put it
+ * more than {@code burst} intervals ahead of now.
+ */
+public class TokenBucket {
+
+    private final long interval;
+
+    private final long capacity;
+
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.interval = (long) (1_000_000_000L / permitsPerSecond);
+        this.capacity = interval * burst;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return 0 when a token was taken, otherwise the nanoseconds until the next one is available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            // nanoTime values are only comparable by their difference
+            long next = (current - nowNanos > 0 ? current : nowNanos) + interval;
+            long wait = next - nowNanos - capacity;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
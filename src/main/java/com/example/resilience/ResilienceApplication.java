@@ -2,8 +2,12 @@ package com.example.resilience;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = {"com.example.resilience", "config", "controller", "service", "repository", "Resilience_modules"})
+@EnableJpaRepositories(basePackages = "repository")
+@EntityScan(basePackages = "model")
 public class ResilienceApplication {
 
 	public static void main(String[] args) {
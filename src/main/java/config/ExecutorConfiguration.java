@@ -0,0 +1,83 @@
+package config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executors for the asynchronous resilience paths, so blocking repository calls never run on the
+ * common ForkJoinPool. Both are published as {@code executor.*} meters (active threads, queued
+ * tasks, pool size, completed tasks, execution and idle time) tagged {@code name=<bean name>}.
+ */
+@Configuration
+public class ExecutorConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutorConfiguration.class);
+
+    public static final String RESILIENCE_EXECUTOR = "resilienceExecutor";
+
+    public static final String RESILIENCE_SCHEDULER = "resilienceScheduler";
+
+    // bounded pool and queue, a full queue rejects the task instead of growing without limit
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService resilienceExecutor(MeterRegistry meterRegistry,
+                                              @Value("${resilience.executor.core-size:8}") int coreSize,
+                                              @Value("${resilience.executor.max-size:16}") int maxSize,
+                                              @Value("${resilience.executor.queue-capacity:100}") int queueCapacity,
+                                              @Value("${resilience.executor.virtual-threads:false}") boolean virtualThreads) {
+        ExecutorService executor = virtualThreads ? virtualThreadExecutor() : null;
+        if (executor == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(coreSize, maxSize, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), threadFactory("resilience-"), new ThreadPoolExecutor.AbortPolicy());
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, RESILIENCE_EXECUTOR, Tags.empty());
+    }
+
+    // only fires timers (retry waits), the work itself is handed to resilienceExecutor
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService resilienceScheduler(MeterRegistry meterRegistry,
+                                                        @Value("${resilience.scheduler.size:2}") int size) {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(size, threadFactory("resilience-scheduler-"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return ExecutorServiceMetrics.monitor(meterRegistry, scheduler, RESILIENCE_SCHEDULER, Tags.empty());
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    // one virtual thread per task on JDK 21+; the bulkheads and limiters in front of the executor bound the concurrency.
+    // Looked up reflectively because the code is compiled for Java 11.
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "resilience-virtual-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads need JDK 21+, running on {}; using the bounded platform thread pool",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+}
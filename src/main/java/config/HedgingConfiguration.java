@@ -0,0 +1,39 @@
+package config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import model.Ingredient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import service.Hedger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static config.ExecutorConfiguration.RESILIENCE_EXECUTOR;
+import static config.ExecutorConfiguration.RESILIENCE_SCHEDULER;
+
+@Configuration
+public class HedgingConfiguration {
+
+    // hedges the findAll behind GET /ingredient, published as hedge.* meters with name=getIngredients
+    @Bean
+    public Hedger<List<Ingredient>> getIngredientsHedger(@Qualifier(RESILIENCE_EXECUTOR) ExecutorService executor,
+                                                        @Qualifier(RESILIENCE_SCHEDULER) ScheduledExecutorService scheduler,
+                                                        MeterRegistry meterRegistry,
+                                                        @Value("${ingredient.hedge.enabled:true}") boolean enabled,
+                                                        @Value("${ingredient.hedge.percentile:0.95}") double percentile,
+                                                        @Value("${ingredient.hedge.min-delay:20ms}") Duration minDelay,
+                                                        @Value("${ingredient.hedge.budget-ratio:0.1}") double budgetRatio) {
+        return new Hedger<List<Ingredient>>(executor, scheduler, Hedger.Config.builder()
+                .enabled(enabled)
+                .percentile(percentile)
+                .minDelay(minDelay)
+                .budgetRatio(budgetRatio)
+                .build())
+                .bindTo(meterRegistry, "getIngredients");
+    }
+}
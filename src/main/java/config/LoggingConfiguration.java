@@ -0,0 +1,20 @@
+package config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import logging.EventLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LoggingConfiguration {
+
+    // events of IngredientService and the Resilience_modules demos, written to stdout by one background thread
+    @Bean(destroyMethod = "close")
+    public EventLog eventLog(MeterRegistry meterRegistry,
+                             @Value("${resilience.event-log.capacity:8192}") int capacity,
+                             @Value("${resilience.event-log.level:INFO}") EventLog.Level level,
+                             @Value("${resilience.event-log.sample-one-in:100}") int sampleOneIn) {
+        return new EventLog(capacity, level, sampleOneIn, System.out).bindTo(meterRegistry);
+    }
+}
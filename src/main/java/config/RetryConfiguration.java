@@ -0,0 +1,42 @@
+package config;
+
+import Resilience_modules.AsyncRetrier;
+import Resilience_modules.RetryBudget;
+import exception.BadRequestException;
+import exception.ConcurrencyLimitExceededException;
+import exception.NotFoundException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static config.ExecutorConfiguration.RESILIENCE_SCHEDULER;
+
+@Configuration
+public class RetryConfiguration {
+
+    // one budget for every retry of the service, so retries cannot pile onto a struggling database
+    @Bean
+    public RetryBudget retryBudget(MeterRegistry meterRegistry,
+                                   @Value("${resilience.retry-budget.ratio:0.1}") double ratio,
+                                   @Value("${resilience.retry-budget.max-tokens:10}") int maxTokens) {
+        return new RetryBudget(ratio, maxTokens).bindTo(meterRegistry, "global");
+    }
+
+    @Bean
+    public AsyncRetrier asyncRetrier(@Qualifier(RESILIENCE_SCHEDULER) ScheduledExecutorService scheduler,
+                                     RetryBudget retryBudget,
+                                     @Value("${resilience.async-retry.max-attempts:5}") int maxAttempts,
+                                     @Value("${resilience.async-retry.base-delay:100ms}") Duration baseDelay,
+                                     @Value("${resilience.async-retry.max-delay:2s}") Duration maxDelay) {
+        return new AsyncRetrier(scheduler, retryBudget, maxAttempts, baseDelay.toMillis(), maxDelay.toMillis(),
+                // client errors and rejections by our own breaker or limiter do not get better by retrying
+                e -> !(e instanceof NotFoundException || e instanceof BadRequestException
+                        || e instanceof CallNotPermittedException || e instanceof ConcurrencyLimitExceededException));
+    }
+}
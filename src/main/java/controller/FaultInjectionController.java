@@ -0,0 +1,42 @@
+package controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+import request.FaultProfileRequest;
+import service.FaultInjectionService;
+
+import javax.validation.Valid;
+
+// unauthenticated and able to fail every read, so only mapped where resilience.fault-injection.enabled=true
+@RestController
+@ConditionalOnProperty(name = "resilience.fault-injection.enabled", havingValue = "true")
+@RequestMapping("/admin/faults")
+@Tag(name = "Fault injection")
+public class FaultInjectionController {
+
+    private final FaultInjectionService faultInjectionService;
+
+    public FaultInjectionController(FaultInjectionService faultInjectionService) {
+        this.faultInjectionService = faultInjectionService;
+    }
+
+    @GetMapping()
+    @Operation(method = "GetFaults", description = "Fault profile currently injected into the ingredient reads")
+    public FaultProfileRequest getFaultProfile() {
+        return faultInjectionService.getActive();
+    }
+
+    @PutMapping()
+    @Operation(method = "SetFaults", description = "Replace the injected failure and latency profile, effective for the next calls")
+    public FaultProfileRequest setFaultProfile(@Valid @RequestBody FaultProfileRequest profile) {
+        return faultInjectionService.apply(profile);
+    }
+
+    @DeleteMapping()
+    @Operation(method = "ClearFaults", description = "Stop injecting failures and latency")
+    public FaultProfileRequest clearFaultProfile() {
+        return faultInjectionService.reset();
+    }
+}
@@ -1,40 +1,144 @@
 package controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import Resilience_modules.LastKnownGood;
+import Resilience_modules.ResilientIngredientService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import model.Ingredient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import request.IngredientRequest;
+import response.IngredientPage;
+import response.IngredientImportSummary;
+import service.IngredientExportService;
+import service.IngredientImportService;
 import service.IngredientService;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Clock;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/ingredient")
 @Tag(name = "Ingredient")
 public class IngredientController {
 
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    static final String TEXT_CSV_VALUE = "text/csv";
+
+    static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
     private final IngredientService ingredientService;
 
-    public IngredientController(IngredientService ingredientService) {
+    private final ResilientIngredientService resilientIngredientService;
+
+    private final IngredientImportService ingredientImportService;
+
+    private final IngredientExportService ingredientExportService;
+
+    private final ObjectMapper objectMapper;
+
+    public IngredientController(IngredientService ingredientService,
+                                ResilientIngredientService resilientIngredientService,
+                                IngredientImportService ingredientImportService,
+                                IngredientExportService ingredientExportService,
+                                ObjectMapper objectMapper) {
         this.ingredientService = ingredientService;
+        this.resilientIngredientService = resilientIngredientService;
+        this.ingredientImportService = ingredientImportService;
+        this.ingredientExportService = ingredientExportService;
+        this.objectMapper = objectMapper;
     }
 
+    @RateLimited("full-read")
     @GetMapping()
-    @Operation(method = "GetAll", description = "Get all ingredients")
-    public List<Ingredient> getIngredients() {
-        return ingredientService.getIngredients();
+    @Operation(method = "GetAll", description = "Get all ingredients, the last known list (with Warning and Age headers) while the backend fails")
+    public ResponseEntity<List<Ingredient>> getIngredients() {
+        LastKnownGood.Snapshot<List<Ingredient>> ingredients = resilientIngredientService.getIngredientsOrLastKnown();
+        if (!ingredients.isStale()) {
+            return ResponseEntity.ok(ingredients.getValue());
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.WARNING, STALE_WARNING)
+                .header(HttpHeaders.AGE, String.valueOf(ingredients.age(Clock.systemUTC()).getSeconds()))
+                .body(ingredients.getValue());
+    }
+
+    @RateLimited("query")
+    @GetMapping(params = "limit")
+    @Operation(method = "GetPage", description = "Get a page of ingredients ordered by id, continue with the returned cursor")
+    public IngredientPage getIngredientsPage(@RequestParam(required = false) String cursor, @RequestParam int limit) {
+        return ingredientService.getIngredientsPage(cursor, limit);
     }
 
+    @RateLimited("full-read")
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    @Operation(method = "Stream", description = "Stream all ingredients as newline delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamIngredients() {
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(null);
+            int[] written = {0};
+            ingredientService.streamIngredients(ingredient -> {
+                try {
+                    generator.writeObject(ingredient);
+                    generator.writeRaw('\n');
+                    // first row goes out right away, then flush in chunks
+                    if (written[0]++ % 500 == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.close();
+        };
+        return ResponseEntity.ok()
+                .header("Content-Type", APPLICATION_NDJSON_VALUE)
+                .body(body);
+    }
+
+    @RateLimited("full-read")
+    @GetMapping("/export")
+    @Operation(method = "Export", description = "Export the whole catalog as a JSON array or CSV file, optionally gzip encoded")
+    public ResponseEntity<StreamingResponseBody> exportIngredients(@RequestParam(defaultValue = "json") String format,
+                                                                   @RequestParam(defaultValue = "false") boolean gzip) {
+        IngredientExportService.Format exportFormat = IngredientExportService.Format.parse(format);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("Content-Type", exportFormat == IngredientExportService.Format.CSV ? TEXT_CSV_VALUE : "application/json")
+                .header("Content-Disposition", "attachment; filename=ingredients." + exportFormat.name().toLowerCase(Locale.ROOT));
+        if (gzip) {
+            response.header("Content-Encoding", "gzip");
+        }
+        return response.body(out -> ingredientExportService.export(out, exportFormat, gzip));
+    }
+
+    @RateLimited("query")
+    @GetMapping("/search")
+    @Operation(method = "Search", description = "Get ingredients whose name starts with the given prefix")
+    public List<Ingredient> searchIngredients(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return ingredientService.searchIngredients(prefix, limit);
+    }
+
+    @RateLimited("lookup")
     @GetMapping("/{id}")
     @Operation(method = "Get", description = "Get specific ingredient by id")
     public Ingredient getIngredient(@PathVariable Long id) {
-        return ingredientService.getIngredient(id);
+        return resilientIngredientService.getIngredient(id);
     }
 
 
+    @RateLimited("write")
     @PostMapping()
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(method = "Add", description = "Add new ingredient")
@@ -42,4 +146,16 @@ public class IngredientController {
         return ingredientService.addIngredient(ingredient.getName());
     }
 
+    @RateLimited("write")
+    @PostMapping(value = "/import", consumes = {APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    @Operation(method = "Import", description = "Bulk import ingredients from a NDJSON ({\"name\": ...} per line) or CSV (name column) body")
+    public IngredientImportSummary importIngredients(InputStream body,
+                                                     @RequestHeader("Content-Type") String contentType,
+                                                     @RequestParam(required = false) Integer batchSize) throws IOException {
+        IngredientImportService.Format format = contentType.startsWith(TEXT_CSV_VALUE)
+                ? IngredientImportService.Format.CSV
+                : IngredientImportService.Format.NDJSON;
+        return ingredientImportService.importIngredients(body, format, batchSize);
+    }
+
 }
@@ -0,0 +1,98 @@
+package controller;
+
+import Resilience_modules.ClientRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-client admission control: every handler is counted against the limit named by its
+ * {@link RateLimited} annotation (or {@code default}), clients are told apart by their API key when it
+ * is one of {@code resilience.rate-limit.api-keys} and otherwise by their address. A client over its limit gets 429 with {@code Retry-After} before the
+ * handler, and the database, are touched.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    static final String API_KEY_HEADER = "X-API-Key";
+
+    static final String DEFAULT_LIMIT = "default";
+
+    private static final String LIMITS_PREFIX = "resilience.rate-limit.limits.";
+
+    private final Map<String, ClientRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    private final Environment environment;
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final long maxClients;
+
+    private final Duration idleExpiry;
+
+    private final Set<String> apiKeys;
+
+    public RateLimitInterceptor(Environment environment,
+                                MeterRegistry meterRegistry,
+                                @Value("${resilience.rate-limit.enabled:true}") boolean enabled,
+                                @Value("${resilience.rate-limit.max-clients:10000}") long maxClients,
+                                @Value("${resilience.rate-limit.idle-expiry:10m}") Duration idleExpiry,
+                                @Value("${resilience.rate-limit.api-keys:}") List<String> apiKeys) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxClients = maxClients;
+        this.idleExpiry = idleExpiry;
+        this.apiKeys = apiKeys.stream().filter(StringUtils::hasText).map(String::trim).collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        RateLimited rateLimited = ((HandlerMethod) handler).getMethodAnnotation(RateLimited.class);
+        String limit = rateLimited == null ? DEFAULT_LIMIT : rateLimited.value();
+        long waitNanos = limiters.computeIfAbsent(limit, this::createLimiter).tryAcquire(clientOf(request));
+        if (waitNanos == 0) {
+            return true;
+        }
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        // whole seconds, rounded up so a client honouring it is not refused again
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+        return false;
+    }
+
+    // an unknown key counts as no key, or a client could start every request with a fresh bucket;
+    // falls back to the remote address, not X-Forwarded-For: that one is client controlled unless a trusted proxy rewrites it
+    private String clientOf(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+
+    private ClientRateLimiter createLimiter(String name) {
+        double permitsPerSecond = environment.getProperty(LIMITS_PREFIX + name + ".permits-per-second", Double.class,
+                environment.getProperty(LIMITS_PREFIX + DEFAULT_LIMIT + ".permits-per-second", Double.class, 50.0));
+        int burst = environment.getProperty(LIMITS_PREFIX + name + ".burst", Integer.class,
+                environment.getProperty(LIMITS_PREFIX + DEFAULT_LIMIT + ".burst", Integer.class, 100));
+        return new ClientRateLimiter(name, permitsPerSecond, burst, maxClients, idleExpiry).bindTo(meterRegistry);
+    }
+}
@@ -0,0 +1,17 @@
+package controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the per-client rate limit ({@code resilience.rate-limit.limits.<name>.*}) a handler is counted
+ * against; handlers without it share the {@code default} limit.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    String value();
+}
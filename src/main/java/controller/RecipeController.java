@@ -0,0 +1,38 @@
+package controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.*;
+import response.RecipePage;
+import response.RecipeResponse;
+import service.RecipeService;
+
+@RestController
+@RequestMapping("/recipe")
+@Tag(name = "Recipe")
+public class RecipeController {
+
+    private final RecipeService recipeService;
+
+    public RecipeController(RecipeService recipeService) {
+        this.recipeService = recipeService;
+    }
+
+    @GetMapping()
+    @Operation(method = "GetPage", description = "Get a page of recipes with their ingredients, optionally only recipes using an ingredient")
+    public RecipePage getRecipes(@RequestParam(required = false) Long ingredientId,
+                                 @RequestParam(required = false) String cursor,
+                                 @RequestParam(defaultValue = "20") int limit) {
+        if (ingredientId != null) {
+            return recipeService.getRecipesByIngredient(ingredientId, cursor, limit);
+        }
+        return recipeService.getRecipes(cursor, limit);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(method = "Get", description = "Get specific recipe with its ingredients by id")
+    public RecipeResponse getRecipe(@PathVariable Long id) {
+        return recipeService.getRecipe(id);
+    }
+
+}
@@ -0,0 +1,34 @@
+package controller;
+
+import Resilience_modules.ResilienceEventStream;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+@RestController
+@RequestMapping("/resilience")
+@Tag(name = "Resilience")
+public class ResilienceEventController {
+
+    private final ResilienceEventStream resilienceEventStream;
+
+    public ResilienceEventController(ResilienceEventStream resilienceEventStream) {
+        this.resilienceEventStream = resilienceEventStream;
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(method = "Events", description = "Live circuit breaker, retry and bulkhead events as server-sent events, "
+            + "optionally only some types (e.g. STATE_TRANSITION) or one instance; resumes after Last-Event-ID while still buffered")
+    public SseEmitter streamEvents(@RequestParam(required = false) List<String> type,
+                                   @RequestParam(required = false) String name,
+                                   @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return resilienceEventStream.subscribe(lastEventId,
+                type == null ? Collections.emptySet() : new HashSet<>(type), name);
+    }
+}
@@ -0,0 +1,17 @@
+package exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_GATEWAY)
+public class DownstreamException extends RuntimeException {
+
+    public DownstreamException(String message) {
+        super(message);
+    }
+
+    public DownstreamException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -1,19 +1,11 @@
 package failues;
 
-public class AlwaysSlowNSeconds implements failures.PotentialDelay {
-    int delayInSeconds;
+import failures.FixedDelay;
 
-    public AlwaysSlowNSeconds(int delayInSeconds) {
-        this.delayInSeconds = delayInSeconds;
-    }
+// an interrupted sleep restores the flag and ends the call, like every other injected delay
+public class AlwaysSlowNSeconds extends FixedDelay {
 
-    @Override
-    public void occur() {
-        try {
-            System.out.println("Sleppy sleepy..");
-            Thread.sleep(delayInSeconds * 1000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+    public AlwaysSlowNSeconds(int delayInSeconds) {
+        super(delayInSeconds * 1000L);
     }
 }
@@ -1,8 +1,10 @@
 package failures;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class FailNTimes implements failures.PotentialFailure {
     int times;
-    int failedCount;
+    final AtomicInteger failedCount = new AtomicInteger();
 
     public FailNTimes(int times) {
         this.times = times;
@@ -10,9 +12,9 @@ public class FailNTimes implements failures.PotentialFailure {
 
     @Override
     public void occur() {
-        if (failedCount++ < times) {
-            System.out.println("Operation failed");
+        // capped so the counter cannot wrap around after 2^31 calls
+        if (failedCount.getAndUpdate(count -> count < times ? count + 1 : count) < times) {
             throw new RuntimeException("Operation failed");
         }
     }
-}
\ No newline at end of file
+}
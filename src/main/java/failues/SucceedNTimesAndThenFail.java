@@ -1,9 +1,11 @@
 package failures;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class SucceedNTimesAndThenFail implements failures.PotentialFailure {
 
   int n;
-  int successCount;
+  final AtomicInteger successCount = new AtomicInteger();
 
   public SucceedNTimesAndThenFail(int n) {
     this.n = n;
@@ -11,8 +13,7 @@ public class SucceedNTimesAndThenFail implements failures.PotentialFailure {
 
   @Override
   public void occur() {
-    if (successCount < n) {
-      successCount++;
+    if (successCount.getAndUpdate(count -> count < n ? count + 1 : count) < n) {
       return;
     }
     throw new RuntimeException("Error occurred while gettign ingredients...");
@@ -1,9 +1,12 @@
 package failures;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class SucceedXTimesFailYTimesAndThenSucceed implements failures.PotentialFailure {
   int successHowMany;
   int failHowMany;
-  int successCount, failCount;
+  // one counter for both phases, so concurrent callers agree on which phase a call belongs to
+  final AtomicInteger callCount = new AtomicInteger();
 
   public SucceedXTimesFailYTimesAndThenSucceed(int successHowMany, int failHowMany) {
     this.successHowMany = successHowMany;
@@ -12,12 +15,12 @@ public class SucceedXTimesFailYTimesAndThenSucceed implements failures.Potential
 
   @Override
   public void occur() {
-    if (successCount < successHowMany) {
-      successCount++;
+    int total = successHowMany + failHowMany;
+    int call = callCount.getAndUpdate(count -> count < total ? count + 1 : count);
+    if (call < successHowMany) {
       return;
     }
-    if (failCount < failHowMany) {
-      failCount++;
+    if (call < total) {
       throw new RuntimeException("Getting ingredients failed");
     }
     return;
@@ -1,11 +1,10 @@
 package failures;
 
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FailHalfTheTime implements failures.PotentialFailure {
-    Random random = new Random();
     int times;
-    int failedCount;
+    final AtomicInteger failedCount = new AtomicInteger();
 
     public FailHalfTheTime(int times) {
         this.times = times;
@@ -13,7 +12,7 @@ public class FailHalfTheTime implements failures.PotentialFailure {
 
     @Override
     public void occur() {
-        if (failedCount++ < times && random.nextInt() % 2 == 0) {
+        if (failedCount.getAndUpdate(count -> count < times ? count + 1 : count) < times && FaultRandom.current().nextBoolean()) {
             throw new RuntimeException("Operation failed");
         }
     }
@@ -22,4 +21,4 @@ public class FailHalfTheTime implements failures.PotentialFailure {
         failures.PotentialFailure failure = new FailHalfTheTime(4);
         failure.occur();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+package failures;
+
+public class FailRate implements failures.PotentialFailure {
+    private final double rate;
+
+    public FailRate(double rate) {
+        this.rate = rate;
+    }
+
+    @Override
+    public void occur() {
+        if (FaultRandom.current().nextDouble() < rate) {
+            throw new RuntimeException("Operation failed");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package failures;
+
+import java.util.SplittableRandom;
+
+/**
+ * Per-thread random numbers for the injectors. Every thread gets its own generator derived from
+ * the seed and its thread id, so there is no contention and a run with the same seed and the same
+ * threads draws the same sequence. {@link #reseed(long)} restarts all threads from a new seed.
+ */
+public final class FaultRandom {
+
+    private static volatile long seed = System.nanoTime();
+
+    private static final ThreadLocal<Holder> RANDOM = new ThreadLocal<>();
+
+    private FaultRandom() {
+    }
+
+    public static void reseed(long newSeed) {
+        seed = newSeed;
+    }
+
+    public static SplittableRandom current() {
+        long currentSeed = seed;
+        Holder holder = RANDOM.get();
+        if (holder == null || holder.seed != currentSeed) {
+            holder = new Holder(currentSeed, new SplittableRandom(currentSeed ^ (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L)));
+            RANDOM.set(holder);
+        }
+        return holder.random;
+    }
+
+    // standard normal sample (Box-Muller), SplittableRandom has no nextGaussian before Java 17
+    static double nextGaussian(SplittableRandom random) {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    private static final class Holder {
+        private final long seed;
+        private final SplittableRandom random;
+
+        private Holder(long seed, SplittableRandom random) {
+            this.seed = seed;
+            this.random = random;
+        }
+    }
+}
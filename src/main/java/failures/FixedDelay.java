@@ -0,0 +1,16 @@
+package failures;
+
+import java.util.SplittableRandom;
+
+public class FixedDelay extends SampledDelay {
+    private final long millis;
+
+    public FixedDelay(long millis) {
+        this.millis = millis;
+    }
+
+    @Override
+    public long sampleMillis(SplittableRandom random) {
+        return millis;
+    }
+}
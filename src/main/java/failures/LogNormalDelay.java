@@ -0,0 +1,22 @@
+package failures;
+
+import java.util.SplittableRandom;
+
+// median * e^(sigma * N(0,1)): most calls near the median, a long right tail, capped at maxMillis
+public class LogNormalDelay extends SampledDelay {
+    private final long medianMillis;
+    private final double sigma;
+    private final long maxMillis;
+
+    public LogNormalDelay(long medianMillis, double sigma, long maxMillis) {
+        this.medianMillis = medianMillis;
+        this.sigma = sigma;
+        this.maxMillis = maxMillis;
+    }
+
+    @Override
+    public long sampleMillis(SplittableRandom random) {
+        double millis = medianMillis * Math.exp(sigma * FaultRandom.nextGaussian(random));
+        return Math.min(maxMillis, Math.round(millis));
+    }
+}
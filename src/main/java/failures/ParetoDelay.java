@@ -0,0 +1,22 @@
+package failures;
+
+import java.util.SplittableRandom;
+
+// at least scaleMillis, heavy tail that gets heavier as shape goes down (shape <= 1 has no mean), capped at maxMillis
+public class ParetoDelay extends SampledDelay {
+    private final long scaleMillis;
+    private final double shape;
+    private final long maxMillis;
+
+    public ParetoDelay(long scaleMillis, double shape, long maxMillis) {
+        this.scaleMillis = scaleMillis;
+        this.shape = shape;
+        this.maxMillis = maxMillis;
+    }
+
+    @Override
+    public long sampleMillis(SplittableRandom random) {
+        double millis = scaleMillis / Math.pow(1.0 - random.nextDouble(), 1.0 / shape);
+        return Math.min(maxMillis, Math.round(millis));
+    }
+}
@@ -0,0 +1,26 @@
+package failures;
+
+import java.util.SplittableRandom;
+
+/**
+ * Delay drawn from a distribution on every call. An interrupted sleep (e.g. a cancelled hedge)
+ * ends the call with an exception instead of carrying on to the database.
+ */
+public abstract class SampledDelay implements PotentialDelay {
+
+    public abstract long sampleMillis(SplittableRandom random);
+
+    @Override
+    public void occur() {
+        long millis = sampleMillis(FaultRandom.current());
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Injected delay interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package failures;
+
+import java.util.SplittableRandom;
+
+public class UniformDelay extends SampledDelay {
+    private final long minMillis;
+    private final long maxMillis;
+
+    public UniformDelay(long minMillis, long maxMillis) {
+        this.minMillis = minMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    @Override
+    public long sampleMillis(SplittableRandom random) {
+        return minMillis + random.nextLong(maxMillis - minMillis + 1);
+    }
+}
@@ -0,0 +1,330 @@
+package logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured event log for the request paths. Callers only check the level, claim a preallocated
+ * slot of a ring buffer with a CAS and copy the event name and up to {@value #MAX_FIELDS} key/value
+ * references into it; timestamps, {@code toString()} and the logfmt line are done by a single
+ * background writer, which is also the only thread touching the output stream. A full buffer drops
+ * the event (counted in {@code event.log.dropped}) instead of blocking the caller, so does a value
+ * whose {@code toString()} throws.
+ */
+public class EventLog implements AutoCloseable {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    static final int MAX_FIELDS = 4;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Slot[] slots;
+
+    private final int mask;
+
+    // next sequence handed to a producer
+    private final AtomicLong claimed = new AtomicLong();
+
+    // sequences below this one have been written and their slots can be reused
+    private final AtomicLong written = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final Level threshold;
+
+    private final int sampleOneIn;
+
+    private final Writer out;
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public EventLog(int capacity, Level threshold, int sampleOneIn, OutputStream out) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.threshold = threshold;
+        this.sampleOneIn = Math.max(1, sampleOneIn);
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        this.writer = new Thread(this::drain, "event-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    public void log(Level level, String event) {
+        Slot slot = isEnabled(level) ? claim(level, event) : null;
+        if (slot != null) {
+            slot.publish(0);
+        }
+    }
+
+    public void log(Level level, String event, String key, Object value) {
+        Slot slot = isEnabled(level) ? claim(level, event) : null;
+        if (slot != null) {
+            slot.field(0, key, value);
+            slot.publish(1);
+        }
+    }
+
+    public void log(Level level, String event, String key1, Object value1, String key2, Object value2) {
+        Slot slot = isEnabled(level) ? claim(level, event) : null;
+        if (slot != null) {
+            slot.field(0, key1, value1);
+            slot.field(1, key2, value2);
+            slot.publish(2);
+        }
+    }
+
+    public void log(Level level, String event, String key1, Object value1, String key2, Object value2,
+                    String key3, Object value3) {
+        Slot slot = isEnabled(level) ? claim(level, event) : null;
+        if (slot != null) {
+            slot.field(0, key1, value1);
+            slot.field(1, key2, value2);
+            slot.field(2, key3, value3);
+            slot.publish(3);
+        }
+    }
+
+    public void log(Level level, String event, String key1, Object value1, String key2, Object value2,
+                    String key3, Object value3, String key4, Object value4) {
+        Slot slot = isEnabled(level) ? claim(level, event) : null;
+        if (slot != null) {
+            slot.field(0, key1, value1);
+            slot.field(1, key2, value2);
+            slot.field(2, key3, value3);
+            slot.field(3, key4, value4);
+            slot.publish(4);
+        }
+    }
+
+    /**
+     * For high-frequency events: logs one call in {@code sample-one-in} on average, with the rate
+     * attached so counts can be scaled back. The draw is thread-local, there is no shared counter.
+     */
+    public void sample(Level level, String event, String key, Object value) {
+        if (isEnabled(level) && (sampleOneIn == 1 || ThreadLocalRandom.current().nextInt(sampleOneIn) == 0)) {
+            Slot slot = claim(level, event);
+            if (slot != null) {
+                slot.field(0, key, value);
+                slot.field(1, "sampled", sampleOneIn);
+                slot.publish(2);
+            }
+        }
+    }
+
+    private Slot claim(Level level, String event) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - written.get() >= slots.length) {
+                dropped.increment();
+                return null;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        Slot slot = slots[(int) sequence & mask];
+        slot.claimedSequence = sequence;
+        slot.timestamp = System.currentTimeMillis();
+        slot.level = level;
+        slot.event = event;
+        slot.thread = Thread.currentThread().getName();
+        return slot;
+    }
+
+    private void drain() {
+        StringBuilder line = new StringBuilder(256);
+        long next = 0;
+        boolean unflushed = false;
+        while (true) {
+            Slot slot = slots[(int) next & mask];
+            if (slot.sequence != next) {
+                // nothing published yet (or the producer of this slot is still copying into it)
+                if (unflushed) {
+                    unflushed = !flush();
+                }
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            line.setLength(0);
+            boolean formatted;
+            try {
+                slot.format(line);
+                formatted = true;
+            } catch (RuntimeException e) {
+                // a value whose toString() throws loses its event, not the only writer thread
+                formatted = false;
+                dropped.increment();
+            }
+            slot.clear();
+            written.lazySet(++next);
+            if (!formatted) {
+                continue;
+            }
+            try {
+                out.append(line);
+                unflushed = true;
+            } catch (IOException e) {
+                dropped.increment();
+            }
+        }
+    }
+
+    private boolean flush() {
+        try {
+            out.flush();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // writes what was published before the call, then stops the writer
+    @Override
+    public void close() {
+        long last = claimed.get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (written.get() < last && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public EventLog bindTo(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("event.log.dropped", dropped, LongAdder::sum)
+                .description("Events dropped because the ring buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("event.log.backlog", this, log -> log.claimed.get() - log.written.get())
+                .description("Events waiting for the writer")
+                .register(meterRegistry);
+        return this;
+    }
+
+    private static final class Slot {
+
+        // sequence of the event this slot holds, set last so the writer sees a complete slot
+        volatile long sequence = -1;
+
+        long claimedSequence;
+
+        long timestamp;
+
+        Level level;
+
+        String event;
+
+        String thread;
+
+        int fieldCount;
+
+        final String[] keys = new String[MAX_FIELDS];
+
+        final Object[] values = new Object[MAX_FIELDS];
+
+        void field(int index, String key, Object value) {
+            keys[index] = key;
+            values[index] = value;
+        }
+
+        void publish(int fieldCount) {
+            this.fieldCount = fieldCount;
+            this.sequence = claimedSequence;
+        }
+
+        void format(StringBuilder line) {
+            line.append("ts=");
+            DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(timestamp), line);
+            line.append(" level=").append(level.name());
+            line.append(" event=");
+            appendValue(line, event);
+            line.append(" thread=");
+            appendValue(line, thread);
+            for (int i = 0; i < fieldCount; i++) {
+                line.append(' ').append(keys[i]).append('=');
+                appendValue(line, values[i]);
+            }
+            line.append('\n');
+        }
+
+        void clear() {
+            for (int i = 0; i < fieldCount; i++) {
+                values[i] = null;
+            }
+            event = null;
+        }
+
+        private static void appendValue(StringBuilder line, Object value) {
+            String text = value instanceof Throwable
+                    ? value.getClass().getName() + ": " + ((Throwable) value).getMessage()
+                    : String.valueOf(value);
+            if (!needsQuotes(text)) {
+                line.append(text);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"' || c == '\\') {
+                    line.append('\\').append(c);
+                } else if (c == '\n') {
+                    line.append("\\n");
+                } else if (c == '\r') {
+                    line.append("\\r");
+                } else if (c == '\t') {
+                    line.append("\\t");
+                } else if (c < ' ') {
+                    line.append(String.format("\\u%04x", (int) c));
+                } else {
+                    line.append(c);
+                }
+            }
+            line.append('"');
+        }
+
+        // user input reaches the values, a raw line break or backslash would let it forge fields or lines
+        private static boolean needsQuotes(String text) {
+            if (text.isEmpty()) {
+                return true;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c <= ' ' || c == '"' || c == '=' || c == '\\') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
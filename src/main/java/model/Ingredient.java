@@ -19,7 +19,9 @@ import java.util.Set;
 @AllArgsConstructor
 public class Ingredient {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence instead of IDENTITY so hibernate.jdbc.batch_size applies to inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ingredient_seq")
+    @SequenceGenerator(name = "ingredient_seq", sequenceName = "ingredient_seq", allocationSize = 50)
     @Column(name = "ingredient_id")
     private Long id;
 
@@ -29,11 +31,21 @@ public class Ingredient {
     @NotNull()
     private String name;
 
+    @JsonIgnore
+    @Column(name = "normalized_name", unique = true)
+    private String normalizedName;
+
     @JsonIgnore
     @ToString.Exclude
     @OneToMany(mappedBy = "ingredient", fetch = FetchType.LAZY)
     private Set<RecipeIngredient> recipeIngredient;
 
+    @PrePersist
+    @PreUpdate
+    void normalizeName() {
+        this.normalizedName = IngredientNames.normalize(name);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,14 @@
+package model;
+
+import java.util.Locale;
+
+public final class IngredientNames {
+
+    private IngredientNames() {
+    }
+
+    // single place where ingredient names are turned into lookup keys (cache, batch resolver, ...)
+    public static String normalize(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
+}
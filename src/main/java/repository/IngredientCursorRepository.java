@@ -0,0 +1,40 @@
+package repository;
+
+import io.micrometer.core.annotation.Timed;
+import model.Ingredient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access for reads that must not materialize the table: rows are handed to the
+ * consumer one by one while the driver pages through a server side cursor.
+ */
+@Repository
+public class IngredientCursorRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IngredientCursorRepository(DataSource dataSource,
+                                      @Value("${ingredient.stream.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    // read-only transaction: the PostgreSQL driver only uses a cursor when autocommit is off
+    @Transactional(readOnly = true)
+    @Timed(value = "ingredient.cursor.reads", histogram = true, description = "Full table reads through the JDBC cursor")
+    public void forEachOrderedById(Consumer<Ingredient> consumer) {
+        jdbcTemplate.query("select ingredient_id, name from ingredient order by ingredient_id",
+                rs -> {
+                    consumer.accept(Ingredient.builder()
+                            .id(rs.getLong(1))
+                            .name(rs.getString(2))
+                            .build());
+                });
+    }
+}
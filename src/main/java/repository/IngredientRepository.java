@@ -1,12 +1,36 @@
 package repository;
 
 import model.Ingredient;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
-    Optional<Ingredient> findByName(String name);
+    Optional<Ingredient> findByNormalizedName(String normalizedName);
+
+    List<Ingredient> findByNormalizedNameIn(Collection<String> normalizedNames);
+
+    List<Ingredient> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // must be consumed inside a read-only transaction, rows are fetched from the cursor as the stream advances
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("select i from Ingredient i order by i.id")
+    Stream<Ingredient> streamAllOrderedById();
 }
@@ -0,0 +1,39 @@
+package repository;
+
+import model.Recipe;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
+
+@Repository
+public interface RecipeRepository extends JpaRepository<Recipe, Long> {
+
+    // pages are selected by id first, fetching a collection together with a limit would page in memory
+    @Query("select r.id from Recipe r where r.id > :afterId order by r.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select distinct ri.recipe.id from RecipeIngredient ri " +
+            "where ri.ingredient.id = :ingredientId and ri.recipe.id > :afterId order by ri.recipe.id")
+    List<Long> findIdsByIngredientAfter(@Param("ingredientId") Long ingredientId,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
+
+    @EntityGraph(attributePaths = {"recipeIngredients", "recipeIngredients.ingredient"})
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("select distinct r from Recipe r where r.id in :ids order by r.id")
+    List<Recipe> findWithIngredientsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"recipeIngredients", "recipeIngredients.ingredient"})
+    Optional<Recipe> findWithIngredientsById(Long id);
+}
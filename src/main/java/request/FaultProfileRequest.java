@@ -0,0 +1,63 @@
+package request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * Fault injected into {@code IngredientService.getIngredients()}. Only the fields of the chosen
+ * failure and delay types are used:
+ * FAIL_N_TIMES(failures), SUCCEED_N_THEN_FAIL(successes), SUCCEED_X_FAIL_Y(successes, failures),
+ * FAIL_RATE(failureRate); FIXED(delayMillis), UNIFORM(delayMillis..maxDelayMillis),
+ * LOG_NORMAL(median delayMillis, sigma, cap maxDelayMillis), PARETO(scale delayMillis, shape, cap maxDelayMillis).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FaultProfileRequest {
+
+    public enum Failure { NONE, FAIL_N_TIMES, SUCCEED_N_THEN_FAIL, SUCCEED_X_FAIL_Y, FAIL_RATE }
+
+    public enum Delay { NONE, FIXED, UNIFORM, LOG_NORMAL, PARETO }
+
+    @NotNull
+    @Builder.Default
+    private Failure failure = Failure.NONE;
+
+    @PositiveOrZero
+    private Integer successes;
+
+    @PositiveOrZero
+    private Integer failures;
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private Double failureRate;
+
+    @NotNull
+    @Builder.Default
+    private Delay delay = Delay.NONE;
+
+    @PositiveOrZero
+    private Long delayMillis;
+
+    @PositiveOrZero
+    private Long maxDelayMillis;
+
+    @Positive
+    private Double sigma;
+
+    @Positive
+    private Double shape;
+
+    // random draws repeat for the same seed, a new one is picked when missing
+    private Long seed;
+}
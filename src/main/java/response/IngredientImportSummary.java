@@ -0,0 +1,18 @@
+package response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class IngredientImportSummary {
+    private long inserted;
+    private long existing;
+    // repeated names within the dedupe window of the same import
+    private long duplicates;
+    private long rejected;
+}
@@ -0,0 +1,19 @@
+package response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import model.Ingredient;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class IngredientPage {
+    private List<Ingredient> items;
+    // opaque token for the next page, null on the last page
+    private String nextCursor;
+}
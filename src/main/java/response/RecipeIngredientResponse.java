@@ -0,0 +1,16 @@
+package response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RecipeIngredientResponse {
+    private Long ingredientId;
+    private String name;
+    private String quantity;
+}
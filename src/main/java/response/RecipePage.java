@@ -0,0 +1,18 @@
+package response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RecipePage {
+    private List<RecipeResponse> items;
+    // opaque token for the next page, null on the last page
+    private String nextCursor;
+}
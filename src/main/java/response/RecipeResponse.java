@@ -0,0 +1,18 @@
+package response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RecipeResponse {
+    private Long id;
+    private String name;
+    private List<RecipeIngredientResponse> ingredients;
+}
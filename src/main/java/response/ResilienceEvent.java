@@ -0,0 +1,24 @@
+package response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.ZonedDateTime;
+
+@Getter
+@AllArgsConstructor
+public class ResilienceEvent {
+    // circuitbreaker, retry or bulkhead
+    private String module;
+    private String name;
+    private String type;
+    private ZonedDateTime createdAt;
+    // the resilience4j event itself, only turned into text when a subscriber receives it
+    @JsonIgnore
+    private Object source;
+
+    public String getDetail() {
+        return String.valueOf(source);
+    }
+}
@@ -0,0 +1,125 @@
+package service;
+
+import exception.BadRequestException;
+import failures.*;
+import org.springframework.stereotype.Service;
+import request.FaultProfileRequest;
+
+/**
+ * Builds the injectors of a {@link FaultProfileRequest} and swaps them into {@link IngredientService}
+ * while it is serving traffic. The injectors are lock-free, so a profile applies consistently to
+ * concurrent calls.
+ */
+@Service
+public class FaultInjectionService {
+
+    private static final long DEFAULT_MAX_DELAY_MILLIS = 30_000;
+
+    // upper bound of every delay field, also keeps the delay arithmetic far from overflowing
+    private static final long DELAY_LIMIT_MILLIS = 600_000;
+
+    private final IngredientService ingredientService;
+
+    private volatile FaultProfileRequest active = new FaultProfileRequest();
+
+    public FaultInjectionService(IngredientService ingredientService) {
+        this.ingredientService = ingredientService;
+    }
+
+    // the profile last applied here, demos that set injectors directly are not reflected
+    public FaultProfileRequest getActive() {
+        return active;
+    }
+
+    public synchronized FaultProfileRequest apply(FaultProfileRequest profile) {
+        if (profile.getFailure() == null || profile.getDelay() == null) {
+            throw new BadRequestException("failure and delay must not be null, use NONE to inject nothing");
+        }
+        PotentialFailure failure = failure(profile);
+        PotentialDelay delay = delay(profile);
+        if (profile.getSeed() == null) {
+            profile.setSeed(System.nanoTime());
+        }
+        FaultRandom.reseed(profile.getSeed());
+        ingredientService.setPotentialFailure(failure);
+        ingredientService.setPotentialDelay(delay);
+        active = profile;
+        return profile;
+    }
+
+    public FaultProfileRequest reset() {
+        return apply(new FaultProfileRequest());
+    }
+
+    private static PotentialFailure failure(FaultProfileRequest profile) {
+        switch (profile.getFailure()) {
+            case FAIL_N_TIMES:
+                return new FailNTimes(nonNegative(profile.getFailures(), "failures"));
+            case SUCCEED_N_THEN_FAIL:
+                return new SucceedNTimesAndThenFail(nonNegative(profile.getSuccesses(), "successes"));
+            case SUCCEED_X_FAIL_Y:
+                return new SucceedXTimesFailYTimesAndThenSucceed(nonNegative(profile.getSuccesses(), "successes"),
+                        nonNegative(profile.getFailures(), "failures"));
+            case FAIL_RATE:
+                double failureRate = required(profile.getFailureRate(), "failureRate");
+                if (failureRate < 0 || failureRate > 1) {
+                    throw new BadRequestException("failureRate must be between 0 and 1");
+                }
+                return new FailRate(failureRate);
+            default:
+                return new NoFailure();
+        }
+    }
+
+    private static PotentialDelay delay(FaultProfileRequest profile) {
+        long maxDelayMillis = profile.getMaxDelayMillis() == null
+                ? DEFAULT_MAX_DELAY_MILLIS : delayMillis(profile.getMaxDelayMillis(), "maxDelayMillis");
+        switch (profile.getDelay()) {
+            case FIXED:
+                return new FixedDelay(delayMillis(profile.getDelayMillis(), "delayMillis"));
+            case UNIFORM:
+                long minDelayMillis = delayMillis(profile.getDelayMillis(), "delayMillis");
+                if (required(profile.getMaxDelayMillis(), "maxDelayMillis") < minDelayMillis) {
+                    throw new BadRequestException("maxDelayMillis must not be less than delayMillis");
+                }
+                return new UniformDelay(minDelayMillis, maxDelayMillis);
+            case LOG_NORMAL:
+                return new LogNormalDelay(delayMillis(profile.getDelayMillis(), "delayMillis"),
+                        positive(profile.getSigma(), "sigma"), maxDelayMillis);
+            case PARETO:
+                return new ParetoDelay(delayMillis(profile.getDelayMillis(), "delayMillis"),
+                        positive(profile.getShape(), "shape"), maxDelayMillis);
+            default:
+                return new NoDelay();
+        }
+    }
+
+    private static <T> T required(T value, String field) {
+        if (value == null) {
+            throw new BadRequestException(field + " is required for this fault profile");
+        }
+        return value;
+    }
+
+    // the request's constraint annotations are not enforced by every validator setup, so the ranges are checked here too
+    private static <T extends Number> T nonNegative(T value, String field) {
+        if (required(value, field).doubleValue() < 0) {
+            throw new BadRequestException(field + " must not be negative");
+        }
+        return value;
+    }
+
+    private static long delayMillis(Long value, String field) {
+        if (nonNegative(value, field) > DELAY_LIMIT_MILLIS) {
+            throw new BadRequestException(field + " must not be more than " + DELAY_LIMIT_MILLIS);
+        }
+        return value;
+    }
+
+    private static double positive(Double value, String field) {
+        if (required(value, field) <= 0) {
+            throw new BadRequestException(field + " must be positive");
+        }
+        return value;
+    }
+}
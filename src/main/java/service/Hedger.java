@@ -0,0 +1,245 @@
+package service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hedged execution of idempotent reads: the call runs on {@code executor}; if it has not answered
+ * after the tracked latency percentile of recent calls, one backup call is started and whichever
+ * succeeds first wins, the other one is cancelled (interrupted). Hedges are paid from a budget that
+ * earns {@code budgetRatio} of a hedge per call, so hedging cannot more than slightly multiply load.
+ * A failing call is not hedged, a failure is only reported once no other attempt is left running.
+ * The losing attempt's time until it stopped is recorded too, so the percentile is not only fed by winners.
+ */
+public class Hedger<T> {
+
+    @Getter
+    @Builder
+    public static class Config {
+        @Builder.Default
+        private final boolean enabled = true;
+        @Builder.Default
+        private final double percentile = 0.95;
+        // never hedge sooner than this, fast calls are not worth a second one
+        @Builder.Default
+        private final Duration minDelay = Duration.ofMillis(20);
+        @Builder.Default
+        private final double budgetRatio = 0.1;
+        @Builder.Default
+        private final int maxBudget = 10;
+        // no hedging until this many latencies have been seen
+        @Builder.Default
+        private final int minSamples = 20;
+    }
+
+    private static final int SAMPLES = 1024;
+
+    private static final long TOKEN = 1000;
+
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ExecutorService executor;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Config config;
+
+    private final AtomicLongArray latencies = new AtomicLongArray(SAMPLES);
+
+    private final AtomicLong recorded = new AtomicLong();
+
+    // in thousandths of a hedge
+    private final AtomicLong budget = new AtomicLong();
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder hedgeWins = new LongAdder();
+
+    private volatile long hedgeDelayNanos = -1;
+
+    private volatile long nextRefreshNanos = System.nanoTime();
+
+    public Hedger(ExecutorService executor, ScheduledExecutorService scheduler, Config config) {
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.config = config;
+    }
+
+    public static <T> Hedger<T> disabled() {
+        return new Hedger<>(null, null, Config.builder().enabled(false).build());
+    }
+
+    public T get(Supplier<T> supplier) {
+        if (!config.isEnabled()) {
+            return supplier.get();
+        }
+        calls.increment();
+        deposit();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        AtomicReference<Future<?>> backup = new AtomicReference<>();
+        Future<?> primary;
+        try {
+            primary = executor.submit(() -> attempt(supplier, result, running, false));
+        } catch (RejectedExecutionException e) {
+            // executor saturated: a plain call on the caller's thread, load alone must not fail the read
+            return supplier.get();
+        }
+
+        long delay = hedgeDelay();
+        ScheduledFuture<?> timer = delay < 0 ? null : scheduler.schedule(() -> {
+            if (result.isDone() || !withdraw()) {
+                return;
+            }
+            running.incrementAndGet();
+            try {
+                Future<?> hedge = executor.submit(() -> attempt(supplier, result, running, true));
+                backup.set(hedge);
+                hedges.increment();
+                // the caller may have finished (and looked for a backup to cancel) since the check above
+                if (result.isDone()) {
+                    hedge.cancel(true);
+                }
+            } catch (RejectedExecutionException e) {
+                // executor saturated, a hedge would only add to the queue
+                running.decrementAndGet();
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } finally {
+            // done before looking at backup, a hedge started from now on sees it and cancels itself
+            result.cancel(false);
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            primary.cancel(true);
+            Future<?> hedge = backup.get();
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private void attempt(Supplier<T> supplier, CompletableFuture<T> result, AtomicInteger running, boolean hedge) {
+        long start = System.nanoTime();
+        try {
+            T value = supplier.get();
+            record(System.nanoTime() - start);
+            if (result.complete(value) && hedge) {
+                hedgeWins.increment();
+            }
+        } catch (Throwable t) {
+            if (result.isDone()) {
+                // cancelled as the loser: a censored sample, it took at least this long. Leaving the slow
+                // attempts out would pull the percentile, and so the hedge delay, toward the fast ones
+                record(System.nanoTime() - start);
+            }
+            if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(t);
+            }
+        }
+    }
+
+    private void record(long latencyNanos) {
+        long index = recorded.getAndIncrement();
+        latencies.set((int) (index % SAMPLES), latencyNanos);
+    }
+
+    // percentile of the last SAMPLES latencies, recomputed at most once per second
+    private long hedgeDelay() {
+        long now = System.nanoTime();
+        if (now - nextRefreshNanos >= 0) {
+            nextRefreshNanos = now + REFRESH_INTERVAL_NANOS;
+            int count = (int) Math.min(recorded.get(), SAMPLES);
+            if (count < config.getMinSamples()) {
+                hedgeDelayNanos = -1;
+            } else {
+                long[] sorted = new long[count];
+                for (int i = 0; i < count; i++) {
+                    sorted[i] = latencies.get(i);
+                }
+                Arrays.sort(sorted);
+                long percentile = sorted[Math.min(count - 1, (int) Math.ceil(config.getPercentile() * count) - 1)];
+                hedgeDelayNanos = Math.max(config.getMinDelay().toNanos(), percentile);
+            }
+        }
+        return hedgeDelayNanos;
+    }
+
+    private void deposit() {
+        long deposit = (long) (config.getBudgetRatio() * TOKEN);
+        long max = config.getMaxBudget() * TOKEN;
+        budget.getAndUpdate(tokens -> Math.min(max, tokens + deposit));
+    }
+
+    private boolean withdraw() {
+        while (true) {
+            long tokens = budget.get();
+            if (tokens < TOKEN) {
+                return false;
+            }
+            if (budget.compareAndSet(tokens, tokens - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    public Hedger<T> bindTo(MeterRegistry meterRegistry, String name) {
+        FunctionCounter.builder("hedge.calls", calls, LongAdder::sum)
+                .tag("name", name)
+                .description("Calls made through the hedger")
+                .register(meterRegistry);
+        FunctionCounter.builder("hedge.hedges", hedges, LongAdder::sum)
+                .tag("name", name)
+                .description("Backup calls started")
+                .register(meterRegistry);
+        FunctionCounter.builder("hedge.wins", hedgeWins, LongAdder::sum)
+                .tag("name", name)
+                .description("Backup calls that answered before the primary")
+                .register(meterRegistry);
+        Gauge.builder("hedge.delay", this, hedger -> Math.max(0, hedger.hedgeDelayNanos) / 1_000_000.0)
+                .tag("name", name)
+                .baseUnit("milliseconds")
+                .description("Time after which a backup call is started, 0 while not enough latencies are known")
+                .register(meterRegistry);
+        return this;
+    }
+}
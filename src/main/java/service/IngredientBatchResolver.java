@@ -0,0 +1,74 @@
+package service;
+
+import model.Ingredient;
+import model.IngredientNames;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import repository.IngredientRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves a batch of ingredient names to entities: names are normalized once, looked up in the
+ * cache, the misses are fetched with chunked {@code IN} queries on the indexed normalized name and
+ * whatever is still missing is inserted with one {@code saveAll}.
+ */
+@Component
+public class IngredientBatchResolver {
+
+    private final IngredientRepository ingredientRepository;
+
+    private final IngredientCache ingredientCache;
+
+    private final int inClauseSize;
+
+    public IngredientBatchResolver(IngredientRepository ingredientRepository,
+                                   IngredientCache ingredientCache,
+                                   @Value("${ingredient.batch.in-clause-size:1000}") int inClauseSize) {
+        this.ingredientRepository = ingredientRepository;
+        this.ingredientCache = ingredientCache;
+        this.inClauseSize = inClauseSize;
+    }
+
+    @Transactional
+    public List<Ingredient> resolve(List<String> ingredientNames) {
+        // normalized name -> name as it was requested (first occurrence wins), request order kept
+        Map<String, String> requested = new LinkedHashMap<>();
+        ingredientNames.forEach(name -> requested.putIfAbsent(IngredientNames.normalize(name), name));
+
+        Map<String, Ingredient> resolved = new HashMap<>(requested.size() * 2);
+        List<String> lookups = new ArrayList<>();
+        requested.keySet().forEach(key -> ingredientCache.getIfPresent(key)
+                .ifPresentOrElse(ingredient -> resolved.put(key, ingredient), () -> lookups.add(key)));
+
+        findExisting(lookups).forEach(ingredient -> resolved.put(ingredient.getNormalizedName(), ingredient));
+
+        List<Ingredient> missingIngredients = new ArrayList<>();
+        requested.forEach((key, name) -> {
+            if (!resolved.containsKey(key)) {
+                missingIngredients.add(Ingredient.builder().name(name).build());
+            }
+        });
+        ingredientRepository.saveAll(missingIngredients)
+                .forEach(ingredient -> resolved.put(ingredient.getNormalizedName(), ingredient));
+        ingredientCache.putAll(resolved.values());
+
+        List<Ingredient> recipeIngredients = new ArrayList<>(requested.size());
+        requested.keySet().forEach(key -> recipeIngredients.add(resolved.get(key)));
+        return recipeIngredients;
+    }
+
+    public List<Ingredient> findExisting(List<String> normalizedNames) {
+        List<Ingredient> existing = new ArrayList<>();
+        for (int from = 0; from < normalizedNames.size(); from += inClauseSize) {
+            List<String> chunk = normalizedNames.subList(from, Math.min(from + inClauseSize, normalizedNames.size()));
+            existing.addAll(ingredientRepository.findByNormalizedNameIn(chunk));
+        }
+        return existing;
+    }
+}
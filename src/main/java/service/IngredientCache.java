@@ -0,0 +1,89 @@
+package service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import model.Ingredient;
+import model.IngredientNames;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import repository.IngredientRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bounded read-through cache in front of {@link IngredientRepository}.
+ * Entries are kept both by id and by normalized name (see {@link IngredientNames#normalize(String)}).
+ * Ingredients are never renamed or deleted, so writes only add entries and nothing is invalidated.
+ * Caffeine uses W-TinyLFU eviction; hit/miss/eviction counts are published as
+ * {@code cache.*} meters with {@code cache=ingredient.byId|ingredient.byName}.
+ */
+@Component
+public class IngredientCache {
+
+    private final IngredientRepository ingredientRepository;
+
+    private final Cache<Long, Ingredient> byId;
+
+    private final Cache<String, Ingredient> byName;
+
+    public IngredientCache(IngredientRepository ingredientRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${ingredient.cache.maximum-size:10000}") long maximumSize,
+                           @Value("${ingredient.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.ingredientRepository = ingredientRepository;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.byName = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "ingredient.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, byName, "ingredient.byName");
+    }
+
+    public Optional<Ingredient> getById(Long id) {
+        // the loader returning null (not found) is not cached, so a later insert is picked up
+        Ingredient ingredient = byId.get(id, key -> ingredientRepository.findById(key).orElse(null));
+        if (ingredient != null) {
+            byName.put(IngredientNames.normalize(ingredient.getName()), ingredient);
+        }
+        return Optional.ofNullable(ingredient);
+    }
+
+    public Optional<Ingredient> getByName(String name) {
+        String key = IngredientNames.normalize(name);
+        Ingredient ingredient = byName.get(key, k -> ingredientRepository.findByNormalizedName(k).orElse(null));
+        if (ingredient != null) {
+            byId.put(ingredient.getId(), ingredient);
+        }
+        return Optional.ofNullable(ingredient);
+    }
+
+    // lookup without touching the database, used by the batch paths that query the misses themselves
+    public Optional<Ingredient> getIfPresent(String name) {
+        return Optional.ofNullable(byName.getIfPresent(IngredientNames.normalize(name)));
+    }
+
+    public void put(Ingredient ingredient) {
+        byId.put(ingredient.getId(), ingredient);
+        byName.put(IngredientNames.normalize(ingredient.getName()), ingredient);
+    }
+
+    public void putAll(Iterable<Ingredient> ingredients) {
+        ingredients.forEach(this::put);
+    }
+
+    // only what happens to be cached by id right now, a partial view and never the whole catalog
+    public List<Ingredient> cachedById() {
+        return new ArrayList<>(byId.asMap().values());
+    }
+}
@@ -0,0 +1,245 @@
+package service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import exception.DownstreamException;
+import model.Ingredient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Client for the downstream ingredient service. One shared {@link HttpClient} keeps its HTTP/1.1
+ * connections alive between calls, so there is a single pool for the route; the number of requests
+ * in flight on it (and so the number of open connections) is capped by {@code max-connections-per-route}.
+ * Every call has three deadlines: connect, request (until the response headers arrive) and total
+ * (headers plus body). Calls past the cap or a deadline fail with {@link DownstreamException}.
+ * <p>
+ * A permit is only returned once its exchange has really ended, since on JDK 11 cancelling the
+ * future of {@code sendAsync} does not abort the exchange (that came with JDK 16). A call given up
+ * on after the headers arrived stops reading the body, which closes the connection; one given up on
+ * before keeps its permit until the client's own request timeout has torn the exchange down.
+ */
+@Component
+public class IngredientClient {
+
+    private static final TypeReference<List<Ingredient>> INGREDIENTS = new TypeReference<>() {
+    };
+
+    private final HttpClient httpClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final URI ingredientsUri;
+
+    private final Duration requestTimeout;
+
+    private final Duration totalTimeout;
+
+    private final Semaphore routePermits;
+
+    public IngredientClient(ObjectMapper objectMapper,
+                            @Value("${ingredient.client.base-url:http://localhost:8081}") String baseUrl,
+                            @Value("${ingredient.client.connect-timeout:500ms}") Duration connectTimeout,
+                            @Value("${ingredient.client.request-timeout:2s}") Duration requestTimeout,
+                            @Value("${ingredient.client.total-timeout:3s}") Duration totalTimeout,
+                            @Value("${ingredient.client.max-connections-per-route:20}") int maxConnectionsPerRoute) {
+        this.objectMapper = objectMapper;
+        this.ingredientsUri = URI.create(baseUrl).resolve("/ingredient");
+        this.requestTimeout = requestTimeout;
+        this.totalTimeout = totalTimeout;
+        this.routePermits = new Semaphore(maxConnectionsPerRoute);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    // blocking variant: the caller's thread stays interruptible, an interrupt gives up on the exchange
+    public List<Ingredient> getIngredients() {
+        CompletableFuture<List<Ingredient>> ingredients = getIngredientsAsync();
+        try {
+            return ingredients.get();
+        } catch (InterruptedException e) {
+            ingredients.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new DownstreamException("GET " + ingredientsUri + " was interrupted", e);
+        } catch (ExecutionException e) {
+            throw translate(e.getCause());
+        }
+    }
+
+    // non-blocking variant: no thread waits on the socket, the future completes on the client's own executor
+    public CompletableFuture<List<Ingredient>> getIngredientsAsync() {
+        if (!routePermits.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new DownstreamException("Connection limit reached for " + ingredientsUri.getAuthority()));
+        }
+        HttpRequest request = HttpRequest.newBuilder(ingredientsUri)
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        Exchange exchange = new Exchange();
+        CompletableFuture<HttpResponse<byte[]>> response = httpClient.sendAsync(request, exchange);
+        // the total deadline gives up on the exchange before the caller sees the failure
+        CompletableFuture<List<Ingredient>> ingredients = response
+                .whenComplete((value, error) -> exchange.ended(error))
+                .thenApply(this::read)
+                .orTimeout(totalTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((value, error) -> {
+                    if (error != null) {
+                        exchange.abort(response);
+                        throw new CompletionException(translate(error));
+                    }
+                    return value;
+                });
+        // so does a caller cancelling, a no-op once the exchange completed
+        ingredients.whenComplete((value, error) -> {
+            if (ingredients.isCancelled()) {
+                exchange.abort(response);
+            }
+        });
+        return ingredients;
+    }
+
+    public int availableConnections() {
+        return routePermits.availablePermits();
+    }
+
+    private List<Ingredient> read(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            throw new DownstreamException("GET " + ingredientsUri + " returned " + response.statusCode());
+        }
+        try {
+            return objectMapper.readValue(response.body(), INGREDIENTS);
+        } catch (IOException e) {
+            throw new DownstreamException("GET " + ingredientsUri + " returned an unreadable body", e);
+        }
+    }
+
+    /**
+     * Body handler of one call that holds its route permit until the exchange has ended: the body was
+     * read or failed, the exchange failed before the headers, or the request timeout has passed for an
+     * exchange given up on before its headers arrived.
+     */
+    private final class Exchange implements HttpResponse.BodyHandler<byte[]> {
+
+        private final long sentNanos = System.nanoTime();
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        // set once the headers arrived and the body is being read
+        private volatile Flow.Subscription body;
+
+        private volatile boolean aborted;
+
+        @Override
+        public HttpResponse.BodySubscriber<byte[]> apply(HttpResponse.ResponseInfo responseInfo) {
+            HttpResponse.BodySubscriber<byte[]> bytes = HttpResponse.BodySubscribers.ofByteArray();
+            return new HttpResponse.BodySubscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    body = subscription;
+                    bytes.onSubscribe(subscription);
+                    if (aborted) {
+                        abortBody(subscription);
+                    }
+                }
+
+                @Override
+                public void onNext(List<ByteBuffer> item) {
+                    bytes.onNext(item);
+                }
+
+                // released first, so the permit is back before the caller sees the result
+                @Override
+                public void onError(Throwable throwable) {
+                    release();
+                    bytes.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    release();
+                    bytes.onComplete();
+                }
+
+                @Override
+                public CompletionStage<byte[]> getBody() {
+                    return bytes.getBody();
+                }
+            };
+        }
+
+        // a failure before the body (connect, request timeout) ends the exchange, a cancellation does not on JDK 11
+        void ended(Throwable error) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause != null && !(cause instanceof CancellationException) && body == null) {
+                release();
+            }
+        }
+
+        void abort(CompletableFuture<HttpResponse<byte[]>> response) {
+            aborted = true;
+            // aborts the exchange from JDK 16 on, only completes the future before
+            response.cancel(true);
+            Flow.Subscription subscription = body;
+            if (subscription != null) {
+                abortBody(subscription);
+            } else {
+                long remaining = Math.max(0, requestTimeout.toNanos() - (System.nanoTime() - sentNanos));
+                CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS).execute(this::release);
+            }
+        }
+
+        // an HTTP/1.1 body that is not read to the end closes its connection
+        private void abortBody(Flow.Subscription subscription) {
+            subscription.cancel();
+            release();
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                routePermits.release();
+            }
+        }
+    }
+
+    private DownstreamException translate(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof DownstreamException) {
+            return (DownstreamException) cause;
+        }
+        if (cause instanceof CancellationException) {
+            return new DownstreamException("GET " + ingredientsUri + " was cancelled", cause);
+        }
+        if (cause instanceof TimeoutException) {
+            return new DownstreamException("GET " + ingredientsUri + " exceeded the total deadline of " + totalTimeout, cause);
+        }
+        if (cause instanceof HttpTimeoutException) {
+            return new DownstreamException("GET " + ingredientsUri + " timed out: " + cause.getMessage(), cause);
+        }
+        return new DownstreamException("GET " + ingredientsUri + " failed: " + cause, cause);
+    }
+}
@@ -0,0 +1,113 @@
+package service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import exception.BadRequestException;
+import model.Ingredient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import repository.IngredientRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the whole catalog to an output stream while reading it from a database cursor.
+ * Every entity is detached once written, so the persistence context (and the heap) stays the
+ * same size for any catalog size.
+ */
+@Service
+public class IngredientExportService {
+
+    public enum Format {
+        JSON, CSV;
+
+        public static Format parse(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unsupported export format " + format);
+            }
+        }
+    }
+
+    private final IngredientRepository ingredientRepository;
+
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public IngredientExportService(IngredientRepository ingredientRepository, ObjectMapper objectMapper) {
+        this.ingredientRepository = ingredientRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public void export(OutputStream out, Format format, boolean gzip) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+        try (Stream<Ingredient> ingredients = ingredientRepository.streamAllOrderedById()) {
+            if (format == Format.CSV) {
+                writeCsv(ingredients, target);
+            } else {
+                writeJson(ingredients, target);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+        out.flush();
+    }
+
+    private void writeJson(Stream<Ingredient> ingredients, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+        ingredients.forEach(ingredient -> {
+            try {
+                generator.writeObject(ingredient);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entityManager.detach(ingredient);
+        });
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    private void writeCsv(Stream<Ingredient> ingredients, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,name\n");
+        ingredients.forEach(ingredient -> {
+            try {
+                writer.write(ingredient.getId().toString());
+                writer.write(',');
+                writer.write(csvField(ingredient.getName()));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entityManager.detach(ingredient);
+        });
+        writer.flush();
+    }
+
+    static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
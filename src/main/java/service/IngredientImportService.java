@@ -0,0 +1,187 @@
+package service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import exception.BadRequestException;
+import model.Ingredient;
+import model.IngredientNames;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.IngredientRepository;
+import request.IngredientRequest;
+import response.IngredientImportSummary;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Streams a bulk ingredient import (NDJSON or CSV) line by line. Names are deduplicated within a
+ * bounded window, existing ones are resolved per chunk through {@link IngredientBatchResolver} and
+ * the rest are inserted with JDBC batching, one transaction per chunk.
+ */
+@Service
+public class IngredientImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private final IngredientRepository ingredientRepository;
+
+    private final IngredientBatchResolver ingredientBatchResolver;
+
+    private final IngredientNameIndex ingredientNameIndex;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${ingredient.import.batch-size:500}")
+    int defaultBatchSize = 500;
+
+    @Value("${ingredient.import.max-batch-size:5000}")
+    int maxBatchSize = 5000;
+
+    @Value("${ingredient.import.dedupe-window:100000}")
+    int dedupeWindow = 100000;
+
+    public IngredientImportService(IngredientRepository ingredientRepository,
+                                   IngredientBatchResolver ingredientBatchResolver,
+                                   IngredientNameIndex ingredientNameIndex,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager) {
+        this.ingredientRepository = ingredientRepository;
+        this.ingredientBatchResolver = ingredientBatchResolver;
+        this.ingredientNameIndex = ingredientNameIndex;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public IngredientImportSummary importIngredients(InputStream body, Format format, Integer batchSize) throws IOException {
+        int chunkSize = batchSize == null ? defaultBatchSize : batchSize;
+        if (chunkSize < 1 || chunkSize > maxBatchSize) {
+            throw new BadRequestException("batchSize must be between 1 and " + maxBatchSize);
+        }
+        IngredientImportSummary summary = new IngredientImportSummary();
+        Set<String> seen = recentlySeen(dedupeWindow);
+        Map<String, String> chunk = new LinkedHashMap<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        boolean firstLine = true;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            boolean header = firstLine && format == Format.CSV && "name".equalsIgnoreCase(line.trim());
+            firstLine = false;
+            if (header || line.isBlank()) {
+                continue;
+            }
+            String name = parseName(line, format);
+            if (name == null || name.trim().length() < 3) {
+                summary.setRejected(summary.getRejected() + 1);
+                continue;
+            }
+            if (!seen.add(IngredientNames.normalize(name))) {
+                summary.setDuplicates(summary.getDuplicates() + 1);
+                continue;
+            }
+            chunk.put(IngredientNames.normalize(name), name);
+            if (chunk.size() == chunkSize) {
+                flush(chunk, chunkSize, summary);
+            }
+        }
+        flush(chunk, chunkSize, summary);
+        return summary;
+    }
+
+    private void flush(Map<String, String> chunk, int batchSize, IngredientImportSummary summary) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        // a violation is only raised once the conflicting row is committed, so every retry finds at
+        // least one more of the names existing and a chunk needs at most one attempt per name
+        List<Ingredient> inserted = null;
+        for (int attempt = 0; inserted == null; attempt++) {
+            try {
+                inserted = insertMissing(chunk, batchSize, summary);
+            } catch (DataIntegrityViolationException e) {
+                // a concurrent writer added some of these names in the meantime, resolve the chunk again
+                if (attempt == chunk.size()) {
+                    throw e;
+                }
+            }
+        }
+        ingredientNameIndex.addAll(inserted);
+        chunk.clear();
+    }
+
+    private List<Ingredient> insertMissing(Map<String, String> chunk, int batchSize, IngredientImportSummary summary) {
+        return transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            Set<String> existing = new HashSet<>();
+            ingredientBatchResolver.findExisting(new ArrayList<>(chunk.keySet()))
+                    .forEach(ingredient -> existing.add(ingredient.getNormalizedName()));
+
+            // inserted in key order, so overlapping imports take their unique index locks in the same
+            // order and one waits for the other instead of both deadlocking
+            List<Ingredient> missing = new ArrayList<>(chunk.size() - existing.size());
+            new TreeMap<>(chunk).forEach((key, name) -> {
+                if (!existing.contains(key)) {
+                    missing.add(Ingredient.builder().name(name).build());
+                }
+            });
+            // flushed through the repository proxy, which translates a unique key violation into
+            // DataIntegrityViolationException (a flush on the EntityManager itself would not)
+            List<Ingredient> inserted = ingredientRepository.saveAllAndFlush(missing);
+            // nothing of the chunk is needed after commit, keep the persistence context small
+            entityManager.clear();
+            summary.setExisting(summary.getExisting() + existing.size());
+            summary.setInserted(summary.getInserted() + inserted.size());
+            return inserted;
+        });
+    }
+
+    private String parseName(String line, Format format) {
+        if (format == Format.NDJSON) {
+            try {
+                return objectMapper.readValue(line, IngredientRequest.class).getName();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        String field = line.trim();
+        if (field.startsWith("\"")) {
+            int end = field.lastIndexOf('"');
+            return end > 0 ? field.substring(1, end).replace("\"\"", "\"") : null;
+        }
+        int comma = field.indexOf(',');
+        return comma < 0 ? field : field.substring(0, comma);
+    }
+
+    private static Set<String> recentlySeen(int window) {
+        // access ordered, so a name that keeps repeating stays in the window
+        Map<String, Boolean> lru = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > window;
+            }
+        };
+        return Collections.newSetFromMap(lru);
+    }
+}
@@ -0,0 +1,63 @@
+package service;
+
+import model.Ingredient;
+import model.IngredientNames;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import repository.IngredientCursorRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted in-memory index of normalized ingredient names for prefix (typeahead) lookups.
+ * It is filled once from the database when the application is ready and then kept current by
+ * the write paths of {@link IngredientService}, so searches never go to the database.
+ */
+@Component
+public class IngredientNameIndex {
+
+    private final IngredientCursorRepository ingredientCursorRepository;
+
+    private final ConcurrentSkipListMap<String, Ingredient> byName = new ConcurrentSkipListMap<>();
+
+    public IngredientNameIndex(IngredientCursorRepository ingredientCursorRepository) {
+        this.ingredientCursorRepository = ingredientCursorRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        ingredientCursorRepository.forEachOrderedById(this::add);
+    }
+
+    public void add(Ingredient ingredient) {
+        // only id and name are served, don't keep the managed entity around
+        byName.put(IngredientNames.normalize(ingredient.getName()),
+                Ingredient.builder().id(ingredient.getId()).name(ingredient.getName()).build());
+    }
+
+    public void addAll(Iterable<Ingredient> ingredients) {
+        ingredients.forEach(this::add);
+    }
+
+    public List<Ingredient> search(String prefix, int limit) {
+        String from = IngredientNames.normalize(prefix);
+        // every key starting with the prefix sorts before prefix + the highest char
+        NavigableMap<String, Ingredient> matches = byName.subMap(from, true, from + Character.MAX_VALUE, false);
+        List<Ingredient> results = new ArrayList<>(Math.min(limit, 16));
+        for (Ingredient ingredient : matches.values()) {
+            if (results.size() == limit) {
+                break;
+            }
+            results.add(ingredient);
+        }
+        return results;
+    }
+
+    public int size() {
+        return byName.size();
+    }
+}
@@ -1,28 +1,64 @@
 package service;
 
 
+import exception.BadRequestException;
 import exception.NotFoundException;
 import failures.NoDelay;
 import failures.NoFailure;
 import failures.PotentialDelay;
 import failures.PotentialFailure;
+import io.micrometer.core.instrument.MeterRegistry;
+import logging.EventLog;
 import model.Ingredient;
+import model.IngredientNames;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import repository.IngredientCursorRepository;
 import repository.IngredientRepository;
+import response.IngredientPage;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.Random;
+import java.util.function.Consumer;
+
+import static logging.EventLog.Level.DEBUG;
+import static logging.EventLog.Level.INFO;
+import static logging.EventLog.Level.WARN;
 
 @Service
 public class IngredientService {
 
     private final IngredientRepository ingredientRepository;
 
-    PotentialFailure potentialFailure= new NoFailure();
+    private final IngredientCache ingredientCache;
+
+    private final IngredientBatchResolver ingredientBatchResolver;
+
+    private final IngredientCursorRepository ingredientCursorRepository;
+
+    private final IngredientNameIndex ingredientNameIndex;
+
+    private final SingleFlight<String, Ingredient> addIngredientFlight = new SingleFlight<>();
+
+    // getIngredient(id) needs no group of its own, the cache loader already runs once per id
+    private final SingleFlight<String, List<Ingredient>> getIngredientsFlight;
+
+    private final Hedger<List<Ingredient>> getIngredientsHedger;
+
+    private final EventLog eventLog;
+
+    @Value("${ingredient.page.max-limit:1000}")
+    int maxPageLimit = 1000;
 
-   PotentialDelay potentialDelay = new NoDelay();
+    @Value("${ingredient.search.max-limit:50}")
+    int maxSearchLimit = 50;
+
+    // swapped at runtime (demos, /admin/faults) while requests are running
+    volatile PotentialFailure potentialFailure = new NoFailure();
+
+    volatile PotentialDelay potentialDelay = new NoDelay();
 
     Random random = new Random();
 
@@ -30,34 +66,77 @@ public class IngredientService {
         this.potentialDelay = potentialDelay;
     }
 
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss:SSS");
-
-    public IngredientService(IngredientRepository ingredientRepository) {
+    public IngredientService(IngredientRepository ingredientRepository,
+                             IngredientCache ingredientCache,
+                             IngredientBatchResolver ingredientBatchResolver,
+                             IngredientCursorRepository ingredientCursorRepository,
+                             IngredientNameIndex ingredientNameIndex,
+                             Hedger<List<Ingredient>> getIngredientsHedger,
+                             EventLog eventLog,
+                             MeterRegistry meterRegistry) {
         this.ingredientRepository = ingredientRepository;
+        this.ingredientCache = ingredientCache;
+        this.ingredientBatchResolver = ingredientBatchResolver;
+        this.ingredientCursorRepository = ingredientCursorRepository;
+        this.ingredientNameIndex = ingredientNameIndex;
+        this.getIngredientsHedger = getIngredientsHedger;
+        this.eventLog = eventLog;
+        this.getIngredientsFlight = new SingleFlight<String, List<Ingredient>>().bindTo(meterRegistry, "getIngredients");
+        addIngredientFlight.bindTo(meterRegistry, "addIngredient");
     }
 
     public Ingredient getIngredient(Long id) {
-        return ingredientRepository.findById(id)
+        return ingredientCache.getById(id)
                 .orElseThrow(() -> new NotFoundException("No ingredient with id " + id + " found"));
     }
 
     public List<Ingredient> getIngredients() {
-        this.potentialFailure.occur();
-        this.potentialDelay.occur();
-        return ingredientRepository.findAll();
+        // simultaneous callers share one findAll, e.g. the burst after a deploy; a slow findAll is hedged
+        return getIngredientsFlight.execute("all", () -> getIngredientsHedger.get(() -> {
+            this.potentialFailure.occur();
+            this.potentialDelay.occur();
+            return ingredientRepository.findAll();
+        }));
+    }
+
+    public IngredientPage getIngredientsPage(String cursor, int limit) {
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new BadRequestException("limit must be between 1 and " + maxPageLimit);
+        }
+        // seek on the primary key instead of OFFSET, one extra row tells whether another page exists
+        List<Ingredient> rows = ingredientRepository.findByIdGreaterThanOrderByIdAsc(
+                KeysetCursor.decode(cursor), PageRequest.of(0, limit + 1));
+        if (rows.size() <= limit) {
+            return new IngredientPage(rows, null);
+        }
+        List<Ingredient> items = rows.subList(0, limit);
+        return new IngredientPage(items, KeysetCursor.encode(items.get(limit - 1).getId()));
+    }
+
+    public List<Ingredient> searchIngredients(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new BadRequestException("prefix must not be empty");
+        }
+        if (limit < 1 || limit > maxSearchLimit) {
+            throw new BadRequestException("limit must be between 1 and " + maxSearchLimit);
+        }
+        return ingredientNameIndex.search(prefix, limit);
+    }
+
+    public void streamIngredients(Consumer<Ingredient> consumer) {
+        ingredientCursorRepository.forEachOrderedById(consumer);
     }
 
     public List<Ingredient> getIngredientsTakingRandomTime() {
         long delay = random.nextInt(3000);
         try {
-            System.out.println(delay);
+            eventLog.log(DEBUG, "ingredients.random-delay", "delayMillis", delay);
             Thread.sleep(delay);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            Thread.currentThread().interrupt();
+            eventLog.log(WARN, "ingredients.random-delay.interrupted");
         }
 
-        System.out.println("Getting ingredients taking random time within 3 secs...");
-
         return ingredientRepository.findAll();
     }
 
@@ -65,45 +144,49 @@ public class IngredientService {
 
 
     public List<Ingredient> getIngredientsTimeoutError() {
-        System.out.println("Get all ingredients in timeout Error function..."
-                + "current time = " + LocalDateTime.now().format(formatter) +
-                "; current thread = " + Thread.currentThread().getName());
+        eventLog.log(INFO, "ingredients.timeout-error");
         return Collections.emptyList();
     }
 
+    // partial view: the ingredients recently read by id, not a substitute for the full list
     public List<Ingredient> getIngredientsfromCache(){
-        List<Ingredient> ingredients = new ArrayList<>();
-        Ingredient ingredient = new Ingredient(1L,"water",null);
-        Ingredient ingredient1 = new Ingredient(2L, "lemon",null);
-        ingredients.add(ingredient);
-        ingredients.add(ingredient1);
-        System.out.println("Returning ingredients results from the cache...");
-        return ingredients;
-
+        eventLog.log(DEBUG, "ingredients.from-cache");
+        return ingredientCache.cachedById();
     }
 
 
     public List<Ingredient> getIngredientsThrowingException() throws Exception {
-        System.out.println("Get all ingredients; "
-                + "current time = " + LocalDateTime.now().format(formatter) +
-                "; current thread = " + Thread.currentThread().getName());
+        eventLog.log(INFO, "ingredients.failing");
 
         throw new Exception("Exception when getting all ingredients");
     }
 
     public Ingredient addIngredient(String ingredientName) {
-        Optional<Ingredient> ingredient = ingredientRepository.findByName(ingredientName);
-        if (ingredient.isEmpty()) {
-            return ingredientRepository.save(Ingredient.builder().name(ingredientName).build());
-        }
+        // concurrent adds of the same name share one insert
+        return addIngredientFlight.execute(IngredientNames.normalize(ingredientName), () -> upsertIngredient(ingredientName));
+    }
 
-        return ingredient.get();
+    private Ingredient upsertIngredient(String ingredientName) {
+        // read-through first: most adds of a known name never reach the unique index
+        Optional<Ingredient> existing = ingredientCache.getByName(ingredientName);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        Ingredient ingredient;
+        try {
+            ingredient = ingredientRepository.saveAndFlush(Ingredient.builder().name(ingredientName).build());
+            ingredientNameIndex.add(ingredient);
+        } catch (DataIntegrityViolationException e) {
+            // another instance inserted the name between the read and the insert
+            ingredient = ingredientRepository.findByNormalizedName(IngredientNames.normalize(ingredientName))
+                    .orElseThrow(() -> e);
+        }
+        ingredientCache.put(ingredient);
+        return ingredient;
     }
 
     public Ingredient addIngredientThrowingException(String ingredientName) throws Exception {
-        System.out.println("Adding ingredient... "
-                + "current time = " + LocalDateTime.now().format(formatter) +
-                "; current thread = " + Thread.currentThread().getName());
+        eventLog.log(INFO, "ingredient.add-failing", "name", ingredientName);
 
         throw new Exception("Exception when adding an ingredient...");
     }
@@ -113,42 +196,23 @@ public class IngredientService {
         try {
             Thread.sleep(1000);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            Thread.currentThread().interrupt();
+            eventLog.log(WARN, "ingredients.slow-read.interrupted");
         }
-        System.out.println("Getting Ingredients; "
-                + "current time = " + LocalDateTime.now().format(formatter) +
-                "; current thread = " + Thread.currentThread().getName());
-
-
-        System.out.println("Getting Ingredients successful at " + LocalDateTime.now().format(formatter));
+        eventLog.log(INFO, "ingredients.slow-read");
         return ingredientRepository.findAll();
     }
 
 
 
     public List<Ingredient> addIngredients(List<String> ingredientNames) {
-        List<Ingredient> recipeIngredients = new ArrayList<>();
-        List<Ingredient> missingIngredients = new ArrayList<>();
-        List<Ingredient> existingIngredients = ingredientRepository.findAll();
-
-        ingredientNames.forEach(ingNames -> {
-            Optional<Ingredient> existingIng = existingIngredients
-                    .stream()
-                    .filter(ing -> ing.getName().trim().toLowerCase().equals(ingNames))
-                    .findFirst();
-            if (existingIng.isPresent()) {
-                recipeIngredients.add(existingIng.get());
-            } else {
-                missingIngredients.add(Ingredient.builder().name(ingNames).build());
-            }
-        });
-
-        recipeIngredients.addAll(ingredientRepository.saveAll(missingIngredients));
-        return recipeIngredients;
+        List<Ingredient> ingredients = ingredientBatchResolver.resolve(ingredientNames);
+        ingredientNameIndex.addAll(ingredients);
+        return ingredients;
     }
 
     public void setPotentialFailure(PotentialFailure potentialFailure) {
-        System.out.println("Setting potential failure..");
+        eventLog.log(INFO, "faults.failure-set", "failure", potentialFailure.getClass().getSimpleName());
         this.potentialFailure = potentialFailure;
     }
 
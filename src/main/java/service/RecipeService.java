@@ -0,0 +1,85 @@
+package service;
+
+import exception.BadRequestException;
+import exception.NotFoundException;
+import model.Recipe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import repository.RecipeRepository;
+import response.RecipeIngredientResponse;
+import response.RecipePage;
+import response.RecipeResponse;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Read side for recipes. Every call issues a fixed number of statements: one for a single recipe,
+ * two for a page (ids, then the recipes with their ingredients through an entity graph),
+ * independent of how many recipes or ingredients are returned.
+ */
+@Service
+@Transactional(readOnly = true)
+public class RecipeService {
+
+    private final RecipeRepository recipeRepository;
+
+    @Value("${recipe.page.max-limit:100}")
+    int maxPageLimit = 100;
+
+    public RecipeService(RecipeRepository recipeRepository) {
+        this.recipeRepository = recipeRepository;
+    }
+
+    public RecipeResponse getRecipe(Long id) {
+        return recipeRepository.findWithIngredientsById(id)
+                .map(RecipeService::toResponse)
+                .orElseThrow(() -> new NotFoundException("No recipe with id " + id + " found"));
+    }
+
+    public RecipePage getRecipes(String cursor, int limit) {
+        checkLimit(limit);
+        return toPage(recipeRepository.findIdsAfter(KeysetCursor.decode(cursor), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    public RecipePage getRecipesByIngredient(Long ingredientId, String cursor, int limit) {
+        checkLimit(limit);
+        return toPage(recipeRepository.findIdsByIngredientAfter(
+                ingredientId, KeysetCursor.decode(cursor), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    private void checkLimit(int limit) {
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new BadRequestException("limit must be between 1 and " + maxPageLimit);
+        }
+    }
+
+    private RecipePage toPage(List<Long> ids, int limit) {
+        String nextCursor = null;
+        if (ids.size() > limit) {
+            ids = ids.subList(0, limit);
+            nextCursor = KeysetCursor.encode(ids.get(limit - 1));
+        }
+        if (ids.isEmpty()) {
+            return new RecipePage(List.of(), null);
+        }
+        List<RecipeResponse> items = recipeRepository.findWithIngredientsByIdIn(ids)
+                .stream()
+                .map(RecipeService::toResponse)
+                .collect(Collectors.toList());
+        return new RecipePage(items, nextCursor);
+    }
+
+    static RecipeResponse toResponse(Recipe recipe) {
+        List<RecipeIngredientResponse> ingredients = recipe.getRecipeIngredients()
+                .stream()
+                .map(recipeIngredient -> new RecipeIngredientResponse(
+                        recipeIngredient.getIngredient().getId(),
+                        recipeIngredient.getIngredient().getName(),
+                        recipeIngredient.getQuantity()))
+                .collect(Collectors.toList());
+        return new RecipeResponse(recipe.getId(), recipe.getName(), ingredients);
+    }
+}
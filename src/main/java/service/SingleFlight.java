@@ -0,0 +1,80 @@
+package service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the supplier, callers arriving
+ * while it is in flight wait for and share its result (or whatever it threw).
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder shared = new LongAdder();
+
+    public V execute(K key, Supplier<V> supplier) {
+        calls.increment();
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            shared.increment();
+            return await(existing);
+        }
+        try {
+            V value = supplier.get();
+            call.complete(value);
+            return value;
+        } catch (Throwable t) {
+            // an Error too, or the callers already waiting on call would block forever
+            call.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    // share of calls that were answered by another caller's execution
+    public double dedupRatio() {
+        long total = calls.sum();
+        return total == 0 ? 0.0 : (double) shared.sum() / total;
+    }
+
+    public SingleFlight<K, V> bindTo(MeterRegistry meterRegistry, String name) {
+        FunctionCounter.builder("singleflight.calls", calls, LongAdder::sum)
+                .tag("name", name)
+                .description("Calls entering the single-flight group")
+                .register(meterRegistry);
+        FunctionCounter.builder("singleflight.shared", shared, LongAdder::sum)
+                .tag("name", name)
+                .description("Calls served by an execution already in flight")
+                .register(meterRegistry);
+        Gauge.builder("singleflight.dedup.ratio", this, SingleFlight::dedupRatio)
+                .tag("name", name)
+                .register(meterRegistry);
+        return this;
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.resilience;
+
+import logging.EventLog;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static logging.EventLog.Level.DEBUG;
+import static logging.EventLog.Level.INFO;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventLogTests {
+
+	@Test
+	void plainValuesAreWrittenAsTheyAre() {
+		String line = format("name", "basil");
+
+		assertTrue(line.endsWith(" name=basil"), line);
+	}
+
+	@Test
+	void valuesThatWouldBreakTheLineAreQuotedAndEscaped() {
+		assertTrue(format("name", "x\nlevel=ERROR event=forged").endsWith(" name=\"x\\nlevel=ERROR event=forged\""));
+		assertTrue(format("name", "x\rlevel=ERROR").endsWith(" name=\"x\\rlevel=ERROR\""));
+		assertTrue(format("name", "x\\nforged").endsWith(" name=\"x\\\\nforged\""));
+		assertTrue(format("name", "tab\there").endsWith(" name=\"tab\\there\""));
+		assertTrue(format("name", "bell\u0007").endsWith(" name=\"bell\\u0007\""));
+		assertTrue(format("name", "say \"hi\"").endsWith(" name=\"say \\\"hi\\\"\""));
+		assertTrue(format("name", "").endsWith(" name=\"\""));
+	}
+
+	@Test
+	void aForgedValueStaysOnOneLine() {
+		String line = format("name", "x\nlevel=ERROR event=forged\r\n");
+
+		assertEquals(1, line.split("\n", -1).length, line);
+	}
+
+	// the written line without its trailing newline
+	private static String format(String key, Object value) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (EventLog eventLog = new EventLog(16, DEBUG, 1, out)) {
+			eventLog.log(INFO, "ingredient.add-failing", key, value);
+		}
+		String written = out.toString(StandardCharsets.UTF_8);
+		assertTrue(written.endsWith("\n"), written);
+		return written.substring(0, written.length() - 1);
+	}
+
+}
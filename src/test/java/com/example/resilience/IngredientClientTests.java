@@ -0,0 +1,134 @@
+package com.example.resilience;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import exception.DownstreamException;
+import model.Ingredient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.IngredientClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngredientClientTests {
+
+	private IngredientStubServer stub;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		stub = new IngredientStubServer();
+	}
+
+	@AfterEach
+	void tearDown() {
+		stub.close();
+	}
+
+	private IngredientClient client(Duration requestTimeout, Duration totalTimeout, int maxConnectionsPerRoute) {
+		return new IngredientClient(new ObjectMapper(), stub.baseUrl(), Duration.ofMillis(500),
+				requestTimeout, totalTimeout, maxConnectionsPerRoute);
+	}
+
+	@Test
+	void readsIngredientsFromDownstream() {
+		stub.respond(200, "[{\"id\":1,\"name\":\"salt\"},{\"id\":2,\"name\":\"pepper\"}]");
+		IngredientClient client = client(Duration.ofSeconds(2), Duration.ofSeconds(3), 4);
+
+		List<Ingredient> ingredients = client.getIngredients();
+		List<Ingredient> again = client.getIngredientsAsync().join();
+
+		assertEquals(2, ingredients.size());
+		assertEquals("pepper", ingredients.get(1).getName());
+		assertEquals(2, again.size());
+		assertEquals(4, client.availableConnections());
+	}
+
+	@Test
+	void slowDownstreamFailsAtTheDeadline() {
+		stub.delay(5_000);
+		IngredientClient client = client(Duration.ofMillis(200), Duration.ofMillis(300), 4);
+
+		long start = System.nanoTime();
+		assertThrows(DownstreamException.class, client::getIngredients);
+		long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+		assertTrue(elapsedMillis < 2_000, "took " + elapsedMillis + " ms");
+		assertEquals(4, client.availableConnections());
+	}
+
+	@Test
+	void slowBodyIsAbortedAtTheDeadline() {
+		stub.respond(200, "[{\"id\":1,\"name\":\"salt\"}]").bodyDelay(5_000);
+		IngredientClient client = client(Duration.ofSeconds(2), Duration.ofMillis(300), 4);
+
+		long start = System.nanoTime();
+		assertThrows(DownstreamException.class, client::getIngredients);
+		long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+		// the body is no longer read, which closes the connection and returns its permit
+		assertTrue(elapsedMillis < 2_000, "took " + elapsedMillis + " ms");
+		assertEquals(4, client.availableConnections());
+	}
+
+	@Test
+	void errorStatusIsADownstreamFailure() {
+		stub.respond(503, "");
+		IngredientClient client = client(Duration.ofSeconds(2), Duration.ofSeconds(3), 4);
+
+		DownstreamException e = assertThrows(DownstreamException.class, client::getIngredients);
+		assertTrue(e.getMessage().contains("503"));
+	}
+
+	@Test
+	void callsPastTheRouteLimitAreRejectedWithoutWaiting() {
+		stub.delay(1_000);
+		IngredientClient client = client(Duration.ofSeconds(2), Duration.ofSeconds(3), 1);
+
+		CompletableFuture<List<Ingredient>> inFlight = client.getIngredientsAsync();
+		CompletableFuture<List<Ingredient>> rejected = client.getIngredientsAsync();
+
+		assertTrue(rejected.isCompletedExceptionally());
+		CompletionException e = assertThrows(CompletionException.class, rejected::join);
+		assertInstanceOf(DownstreamException.class, e.getCause());
+		assertFalse(inFlight.isDone());
+		inFlight.join();
+		assertEquals(1, stub.requests());
+	}
+
+	@Test
+	void interruptingTheCallerFreesItButKeepsThePermitUntilTheExchangeEnds() throws Exception {
+		stub.delay(5_000);
+		IngredientClient client = client(Duration.ofSeconds(1), Duration.ofSeconds(10), 4);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<List<Ingredient>> call = executor.submit(client::getIngredients);
+			Thread.sleep(200);
+			call.cancel(true);
+
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(500, TimeUnit.MILLISECONDS), "worker still blocked on the downstream call");
+			// no headers yet, the exchange only ends with the request timeout
+			assertEquals(3, client.availableConnections());
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+			while (client.availableConnections() < 4 && System.nanoTime() < deadline) {
+				Thread.sleep(20);
+			}
+			assertEquals(4, client.availableConnections());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
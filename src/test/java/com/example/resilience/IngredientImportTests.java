@@ -0,0 +1,75 @@
+package com.example.resilience;
+
+import model.IngredientNames;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import repository.IngredientRepository;
+import response.IngredientImportSummary;
+import service.IngredientImportService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class IngredientImportTests {
+
+	private static final int NAMES = 600;
+
+	private static final int IMPORTS = 4;
+
+	@Autowired
+	private IngredientImportService ingredientImportService;
+
+	@Autowired
+	private IngredientRepository ingredientRepository;
+
+	@Test
+	void concurrentImportsOfOverlappingNamesInsertEachNameOnce() throws Exception {
+		List<String> names = IntStream.range(0, NAMES).mapToObj(i -> "overlap " + i).collect(Collectors.toList());
+		ExecutorService executor = Executors.newFixedThreadPool(IMPORTS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<IngredientImportSummary>> imports = new ArrayList<>();
+		try {
+			for (int i = 0; i < IMPORTS; i++) {
+				List<String> shuffled = new ArrayList<>(names);
+				Collections.shuffle(shuffled, new Random(i));
+				byte[] csv = ("name\n" + String.join("\n", shuffled)).getBytes(StandardCharsets.UTF_8);
+				imports.add(executor.submit(() -> {
+					start.await();
+					return ingredientImportService.importIngredients(new ByteArrayInputStream(csv), IngredientImportService.Format.CSV, 20);
+				}));
+			}
+			start.countDown();
+
+			int inserted = 0;
+			for (Future<IngredientImportSummary> result : imports) {
+				IngredientImportSummary summary = result.get(30, TimeUnit.SECONDS);
+				assertEquals(NAMES, summary.getInserted() + summary.getExisting());
+				inserted += summary.getInserted();
+			}
+
+			assertEquals(NAMES, inserted);
+			assertEquals(NAMES, ingredientRepository.findByNormalizedNameIn(
+					names.stream().map(IngredientNames::normalize).collect(Collectors.toList())).size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.example.resilience;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded stand-in for the downstream ingredient service: serves {@code GET /ingredient} on a free
+ * local port with a configurable status, body and delay, before the headers or in the middle of the body.
+ */
+class IngredientStubServer implements AutoCloseable {
+
+	private final HttpServer server;
+
+	private final AtomicInteger requests = new AtomicInteger();
+
+	private final CountDownLatch released = new CountDownLatch(1);
+
+	private volatile int status = 200;
+
+	private volatile String body = "[]";
+
+	private volatile long delayMillis;
+
+	private volatile long bodyDelayMillis;
+
+	IngredientStubServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/ingredient", exchange -> {
+			requests.incrementAndGet();
+			try {
+				released.await(delayMillis, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(status, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes, 0, bytes.length / 2);
+				out.flush();
+				try {
+					released.await(bodyDelayMillis, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				out.write(bytes, bytes.length / 2, bytes.length - bytes.length / 2);
+			} catch (IOException e) {
+				// the client gave up on the body
+			}
+		});
+		server.start();
+	}
+
+	String baseUrl() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	IngredientStubServer respond(int status, String body) {
+		this.status = status;
+		this.body = body;
+		return this;
+	}
+
+	IngredientStubServer delay(long delayMillis) {
+		this.delayMillis = delayMillis;
+		return this;
+	}
+
+	IngredientStubServer bodyDelay(long bodyDelayMillis) {
+		this.bodyDelayMillis = bodyDelayMillis;
+		return this;
+	}
+
+	int requests() {
+		return requests.get();
+	}
+
+	@Override
+	public void close() {
+		released.countDown();
+		server.stop(0);
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.resilience;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(properties = "resilience.rate-limit.api-keys=known-key")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class RateLimitTests {
+
+	// resilience.rate-limit.limits.full-read.burst
+	private static final int BURST = 5;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void rotatingUnknownKeysDoesNotBypassTheLimit() throws Exception {
+		for (int i = 0; i < BURST; i++) {
+			assertEquals(200, status(list("10.0.0.1").header("X-API-Key", UUID.randomUUID().toString())));
+		}
+		assertEquals(429, status(list("10.0.0.1").header("X-API-Key", UUID.randomUUID().toString())));
+		assertEquals(429, status(list("10.0.0.1")));
+	}
+
+	@Test
+	void knownKeyHasABucketOfItsOwn() throws Exception {
+		for (int i = 0; i < BURST; i++) {
+			assertEquals(200, status(list("10.0.0.2")));
+		}
+		assertEquals(429, status(list("10.0.0.2")));
+		assertEquals(200, status(list("10.0.0.2").header("X-API-Key", "known-key")));
+	}
+
+	private MockHttpServletRequestBuilder list(String remoteAddress) {
+		return get("/ingredient").with(request -> {
+			request.setRemoteAddr(remoteAddress);
+			return request;
+		});
+	}
+
+	private int status(MockHttpServletRequestBuilder request) throws Exception {
+		return mockMvc.perform(request).andReturn().getResponse().getStatus();
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.example.resilience;
+
+import model.Ingredient;
+import model.Recipe;
+import model.RecipeIngredient;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import response.RecipePage;
+import response.RecipeResponse;
+import service.RecipeService;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(RecipeService.class)
+class RecipeQueryCountTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private RecipeService recipeService;
+
+	private Statistics statistics;
+
+	private Long sharedIngredientId;
+
+	private Long firstRecipeId;
+
+	@BeforeEach
+	void setUp() {
+		Ingredient shared = entityManager.persist(Ingredient.builder().name("water").build());
+		sharedIngredientId = shared.getId();
+		for (int r = 0; r < 10; r++) {
+			Recipe recipe = Recipe.builder().name("recipe " + r).recipeIngredients(new ArrayList<>()).build();
+			recipe.getRecipeIngredients().add(RecipeIngredient.builder().recipe(recipe).ingredient(shared).quantity("1 l").build());
+			for (int i = 0; i < 5; i++) {
+				Ingredient ingredient = entityManager.persist(Ingredient.builder().name("ingredient " + r + "-" + i).build());
+				recipe.getRecipeIngredients().add(RecipeIngredient.builder().recipe(recipe).ingredient(ingredient).quantity(i + " g").build());
+			}
+			entityManager.persist(recipe);
+			if (firstRecipeId == null) {
+				firstRecipeId = recipe.getId();
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void recipeByIdIsOneQuery() {
+		RecipeResponse recipe = recipeService.getRecipe(firstRecipeId);
+
+		assertEquals(6, recipe.getIngredients().size());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void recipePageIsTwoQueriesRegardlessOfSize() {
+		RecipePage page = recipeService.getRecipes(null, 8);
+
+		assertEquals(8, page.getItems().size());
+		assertNotNull(page.getNextCursor());
+		page.getItems().forEach(recipe -> assertEquals(6, recipe.getIngredients().size()));
+		assertEquals(2, statistics.getPrepareStatementCount());
+
+		statistics.clear();
+		RecipePage rest = recipeService.getRecipes(page.getNextCursor(), 8);
+
+		assertEquals(2, rest.getItems().size());
+		assertEquals(null, rest.getNextCursor());
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void recipesByIngredientIsTwoQueries() {
+		List<RecipeResponse> recipes = recipeService.getRecipesByIngredient(sharedIngredientId, null, 20).getItems();
+
+		assertEquals(10, recipes.size());
+		recipes.forEach(recipe -> assertEquals(6, recipe.getIngredients().size()));
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+}